@@ -1,16 +1,25 @@
 package ch.epfl.javelo;
 
+import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.function.ToLongFunction;
 
 /**
- * Class that represents Least Recently Used (LRU) cache with a certain capacity
+ * Class that represents Least Recently Used (LRU) cache with a certain capacity.
+ * The capacity is either a number of entries or, if the cache has a weigher, a total weight of its values
+ * (e.g. an estimation of their size in memory).
+ * <p>
+ * The entries are kept in a private map, only modified by put and clear, so that the total weight is always
+ * the one of the values of the cache.
  *
  * @param <K> : Generic type for the keys
  * @param <V> : Generic type for the values
  */
-public class LRUCache<K, V> extends LinkedHashMap<K, V> {
-    private final int MAX_ENTRIES;
+public final class LRUCache<K, V> {
+    private final long MAX_WEIGHT;
+    private final ToLongFunction<? super V> weigher;
+    private final LinkedHashMap<K, V> entries;
+    private long weight;
 
     /**
      * Constructor
@@ -19,20 +28,76 @@ public class LRUCache<K, V> extends LinkedHashMap<K, V> {
      * @param loadFactor  the load factor
      */
     public LRUCache(int maxCapacity, float loadFactor) {
-        super(maxCapacity, loadFactor, true);
-        this.MAX_ENTRIES = maxCapacity;
+        this(maxCapacity, loadFactor, value -> 1);
     }
 
     /**
-     * This method determines whether an element should be removed
+     * Constructor of a cache whose capacity is the total weight of its values
      *
-     * @param eldest : entry of the map
-     * @return true iff the size has exceeded the capacity
+     * @param maxWeight  : maximum total weight of the values of the cache
+     * @param loadFactor : the load factor
+     * @param weigher    : function giving the (positive) weight of a value
      */
+    public LRUCache(long maxWeight, float loadFactor, ToLongFunction<? super V> weigher) {
+        this.MAX_WEIGHT = maxWeight;
+        this.weigher = weigher;
+        this.entries = new LinkedHashMap<>(16, loadFactor, true);
+    }
 
-    @Override
-    protected boolean removeEldestEntry(Map.Entry eldest) {
-        return size() > MAX_ENTRIES;
+    /**
+     * Returns the value associated to the key, which becomes the most recently used one
+     *
+     * @param key : the key
+     * @return the value, or null if the key is not in the cache
+     */
+    public V get(K key) {
+        return entries.get(key);
     }
-}
 
+    /**
+     * Returns true iff the key is in the cache, without changing the order of use of the entries
+     *
+     * @param key : the key
+     * @return true iff the key is in the cache
+     */
+    public boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Associates the value to the key and removes the least recently used entries until the total weight fits
+     * in the capacity (the entry just added being always kept)
+     *
+     * @param key   : the key
+     * @param value : the value, not null
+     * @return the value previously associated to the key, or null
+     */
+    public V put(K key, V value) {
+        V oldValue = entries.put(key, value);
+        weight += weigher.applyAsLong(value) - (oldValue == null ? 0 : weigher.applyAsLong(oldValue));
+
+        Iterator<V> iterator = entries.values().iterator();
+        while (weight > MAX_WEIGHT && entries.size() > 1) {
+            weight -= weigher.applyAsLong(iterator.next());
+            iterator.remove();
+        }
+        return oldValue;
+    }
+
+    /**
+     * Removes all the entries of the cache
+     */
+    public void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Returns the total weight of the values of the cache, which is their number if it has no weigher
+     *
+     * @return the total weight
+     */
+    public long weight() {
+        return weight;
+    }
+}
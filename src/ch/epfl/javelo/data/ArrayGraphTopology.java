@@ -0,0 +1,117 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Q28_4;
+
+
+/**
+ * ArrayGraphTopology
+ * Topology of the graph copied in one array per field (compressed sparse rows for the out-edges),
+ * so that the fields read together by the route computations are next to each other in memory,
+ * without the bounds checks and unaligned reads of the buffers of the binary files.
+ *
+ * @author David Farah (341017)
+ * @author Wesley Nana Davies(344592)
+ */
+final class ArrayGraphTopology implements GraphTopology {
+    private final int[] nodeEs;
+    private final int[] nodeNs;
+    private final int[] firstOutEdgeIds;
+    private final byte[] outDegrees;
+    // target node ID of every edge, complemented (i.e. negative) for inverted edges, as in the edges file
+    private final int[] edgeTargets;
+    private final float[] edgeLengths;
+    private final float[] edgeElevationGains;
+    private final char[] edgeAttributesIndexes;
+
+
+    /**
+     * Constructor of the class which copies the given topology
+     *
+     * @param topology : topology to copy
+     */
+    ArrayGraphTopology(GraphTopology topology) {
+        int nodeCount = topology.nodeCount();
+        nodeEs = new int[nodeCount];
+        nodeNs = new int[nodeCount];
+        firstOutEdgeIds = new int[nodeCount];
+        outDegrees = new byte[nodeCount];
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            // coordinates are stored in Q28.4, so that they are converted back exactly
+            nodeEs[nodeId] = (int) Math.scalb(topology.nodeE(nodeId), 4);
+            nodeNs[nodeId] = (int) Math.scalb(topology.nodeN(nodeId), 4);
+            int outDegree = topology.nodeOutDegree(nodeId);
+            outDegrees[nodeId] = (byte) outDegree;
+            firstOutEdgeIds[nodeId] = outDegree == 0 ? 0 : topology.nodeOutEdgeId(nodeId, 0);
+        }
+
+        int edgeCount = topology.edgeCount();
+        edgeTargets = new int[edgeCount];
+        edgeLengths = new float[edgeCount];
+        edgeElevationGains = new float[edgeCount];
+        edgeAttributesIndexes = new char[edgeCount];
+        for (int edgeId = 0; edgeId < edgeCount; edgeId++) {
+            int targetNodeId = topology.edgeTargetNodeId(edgeId);
+            edgeTargets[edgeId] = topology.edgeIsInverted(edgeId) ? ~targetNodeId : targetNodeId;
+            edgeLengths[edgeId] = (float) topology.edgeLength(edgeId);
+            edgeElevationGains[edgeId] = (float) topology.edgeElevationGain(edgeId);
+            edgeAttributesIndexes[edgeId] = (char) topology.edgeAttributesIndex(edgeId);
+        }
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeEs.length;
+    }
+
+    @Override
+    public double nodeE(int nodeId) {
+        return Q28_4.asDouble(nodeEs[nodeId]);
+    }
+
+    @Override
+    public double nodeN(int nodeId) {
+        return Q28_4.asDouble(nodeNs[nodeId]);
+    }
+
+    @Override
+    public int nodeOutDegree(int nodeId) {
+        return outDegrees[nodeId];
+    }
+
+    @Override
+    public int nodeOutEdgeId(int nodeId, int edgeIndex) {
+        assert 0 <= edgeIndex && edgeIndex < nodeOutDegree(nodeId);
+        return firstOutEdgeIds[nodeId] + edgeIndex;
+    }
+
+    @Override
+    public int edgeCount() {
+        return edgeTargets.length;
+    }
+
+    @Override
+    public int edgeTargetNodeId(int edgeId) {
+        int edgeTarget = edgeTargets[edgeId];
+        return edgeTarget >= 0 ? edgeTarget : ~edgeTarget;
+    }
+
+    @Override
+    public boolean edgeIsInverted(int edgeId) {
+        return edgeTargets[edgeId] < 0;
+    }
+
+    @Override
+    public double edgeLength(int edgeId) {
+        return edgeLengths[edgeId];
+    }
+
+    @Override
+    public double edgeElevationGain(int edgeId) {
+        return edgeElevationGains[edgeId];
+    }
+
+    @Override
+    public int edgeAttributesIndex(int edgeId) {
+        return edgeAttributesIndexes[edgeId];
+    }
+}
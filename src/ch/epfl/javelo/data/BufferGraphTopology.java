@@ -0,0 +1,69 @@
+package ch.epfl.javelo.data;
+
+
+/**
+ * BufferGraphTopology record
+ * Topology of the graph read directly from the buffers of its binary files.
+ *
+ * @param nodes : graph nodes
+ * @param edges : graph edges
+ * @author David Farah (341017)
+ * @author Wesley Nana Davies(344592)
+ */
+record BufferGraphTopology(GraphNodes nodes, GraphEdges edges) implements GraphTopology {
+
+    @Override
+    public int nodeCount() {
+        return nodes.count();
+    }
+
+    @Override
+    public double nodeE(int nodeId) {
+        return nodes.nodeE(nodeId);
+    }
+
+    @Override
+    public double nodeN(int nodeId) {
+        return nodes.nodeN(nodeId);
+    }
+
+    @Override
+    public int nodeOutDegree(int nodeId) {
+        return nodes.outDegree(nodeId);
+    }
+
+    @Override
+    public int nodeOutEdgeId(int nodeId, int edgeIndex) {
+        return nodes.edgeId(nodeId, edgeIndex);
+    }
+
+    @Override
+    public int edgeCount() {
+        return edges.count();
+    }
+
+    @Override
+    public int edgeTargetNodeId(int edgeId) {
+        return edges.targetNodeId(edgeId);
+    }
+
+    @Override
+    public boolean edgeIsInverted(int edgeId) {
+        return edges.isInverted(edgeId);
+    }
+
+    @Override
+    public double edgeLength(int edgeId) {
+        return edges.length(edgeId);
+    }
+
+    @Override
+    public double edgeElevationGain(int edgeId) {
+        return edges.elevationGain(edgeId);
+    }
+
+    @Override
+    public int edgeAttributesIndex(int edgeId) {
+        return edges.attributesIndex(edgeId);
+    }
+}
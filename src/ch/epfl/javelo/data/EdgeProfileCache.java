@@ -0,0 +1,99 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntFunction;
+
+
+/**
+ * EdgeProfileCache
+ * Cache of the decoded profiles of the edges of a graph, of bounded size, which can be used by several threads.
+ * It is direct-mapped: every edge ID is associated, by hashing, with a single slot of the cache, and the profile
+ * of an edge replaces the one of the edge previously stored in the same slot. The hits and misses are counted.
+ *
+ * @author David Farah (341017)
+ * @author Wesley Nana Davies(344592)
+ */
+public final class EdgeProfileCache {
+    private final AtomicReferenceArray<Entry> entries;
+    private final int shift;
+    private final IntFunction<DoubleUnaryOperator> decoder;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+
+    /**
+     * Constructor of the class which creates an empty cache with the given capacity
+     *
+     * @param capacity : maximum number of profiles in the cache, a power of two
+     * @param decoder  : function returning the decoded profile of an edge, given its ID
+     * @throws IllegalArgumentException if the capacity is not a power of two greater than 1
+     */
+    EdgeProfileCache(int capacity, IntFunction<DoubleUnaryOperator> decoder) {
+        Preconditions.checkArgument(capacity > 1 && Integer.bitCount(capacity) == 1);
+        this.entries = new AtomicReferenceArray<>(capacity);
+        this.shift = Integer.SIZE - Integer.numberOfTrailingZeros(capacity);
+        this.decoder = decoder;
+    }
+
+    /**
+     * Returns the profile of the given edge, from the cache if it is there, decoded (and added to the cache)
+     * otherwise. Two threads missing the same edge at the same time may both decode it.
+     *
+     * @param edgeId : ID of the edge
+     * @return the profile of the edge
+     */
+    DoubleUnaryOperator profile(int edgeId) {
+        // Fibonacci hashing, so that neighbouring edges are spread over the whole cache
+        int slot = (edgeId * 0x9E3779B9) >>> shift;
+        Entry entry = entries.get(slot);
+        if (entry != null && entry.edgeId() == edgeId) {
+            hits.increment();
+            return entry.profile();
+        }
+
+        misses.increment();
+        DoubleUnaryOperator profile = decoder.apply(edgeId);
+        entries.set(slot, new Entry(edgeId, profile));
+        return profile;
+    }
+
+    /**
+     * Returns the maximum number of profiles in the cache
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return entries.length();
+    }
+
+    /**
+     * Returns the number of profiles found in the cache since its creation
+     *
+     * @return the number of hits
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of profiles which had to be decoded since the creation of the cache
+     *
+     * @return the number of misses
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Profile of an edge stored in the cache
+     *
+     * @param edgeId  : ID of the edge
+     * @param profile : decoded profile of the edge
+     */
+    private record Entry(int edgeId, DoubleUnaryOperator profile) {
+    }
+}
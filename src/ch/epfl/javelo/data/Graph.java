@@ -1,18 +1,24 @@
 package ch.epfl.javelo.data;
 
 import ch.epfl.javelo.Functions;
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.Preconditions;
 import ch.epfl.javelo.projection.PointCh;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.ShortBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntPredicate;
 
 
 /**
@@ -22,10 +28,19 @@ import java.util.function.DoubleUnaryOperator;
  * @author David Farah (341017)
  */
 public final class Graph {
-    private final GraphNodes nodes;
+    /**
+     * Maximum number of decoded edge profiles kept in the cache of the graph
+     */
+    public static final int PROFILE_CACHE_CAPACITY = 1 << 16;
+
+    private final GraphTopology topology;
     private final GraphSectors sectors;
     private final GraphEdges edges;
-    private final List<AttributeSet> attributeSets;
+    private final long[] attributeBits;
+    private volatile GraphInEdges inEdges;
+    private volatile GraphSectors.SegmentLengths segmentLengths;
+    private final EdgeProfileCache profileCache;
+    private final CompletableFuture<List<FileLoadMetrics>> loadMetrics;
 
 
     /**
@@ -38,55 +53,183 @@ public final class Graph {
      * @param attributeSets : list of AttributeSets
      */
     public Graph(GraphNodes nodes, GraphSectors sectors, GraphEdges edges, List<AttributeSet> attributeSets) {
-        this.nodes = nodes;
+        this(new BufferGraphTopology(nodes, edges), sectors, edges,
+                attributeSets.stream().mapToLong(AttributeSet::bits).toArray(),
+                CompletableFuture.completedFuture(List.of()));
+    }
+
+    /**
+     * Constructor of the class which creates a graph
+     * from its topology, sectors, edges, the bits of the AttributeSets and the metrics of the loading of its files.
+     *
+     * @param topology      : graph nodes and edges, as read by the route computations
+     * @param sectors       : graph sectors
+     * @param edges         : graph edges, whose profiles are read
+     * @param attributeBits : bits of the AttributeSets, in order (not copied)
+     * @param loadMetrics   : metrics of the files, available once they are loaded
+     */
+    private Graph(GraphTopology topology, GraphSectors sectors, GraphEdges edges, long[] attributeBits,
+                  CompletableFuture<List<FileLoadMetrics>> loadMetrics) {
+        this.topology = topology;
         this.sectors = sectors;
         this.edges = edges;
-        this.attributeSets = List.copyOf(attributeSets);
+        this.attributeBits = attributeBits;
+        this.profileCache = new EdgeProfileCache(PROFILE_CACHE_CAPACITY, this::decodedEdgeProfile);
+        this.loadMetrics = loadMetrics;
     }
 
     /**
-     * Returns the JaVelo graph obtained from the files located in basePath
+     * Returns the JaVelo graph obtained from the files located in basePath, which are memory-mapped
+     * and only read from the disk when they are accessed (LoadMode.LAZY)
      *
      * @param basePath : the path to the directory of the stored file
      * @return the JaVelo graph
      * @throws IOException in the event of an input/output error
      */
     public static Graph loadFrom(Path basePath) throws IOException {
+        return loadFrom(basePath, LoadMode.LAZY);
+    }
+
+    /**
+     * Returns the JaVelo graph obtained from the files located in basePath, loaded in the given way
+     *
+     * @param basePath : the path to the directory of the stored file
+     * @param loadMode : the way the files are loaded
+     * @return the JaVelo graph
+     * @throws IOException in the event of an input/output error
+     */
+    public static Graph loadFrom(Path basePath, LoadMode loadMode) throws IOException {
+        return loadFrom(basePath, loadMode, Layout.BUFFERS);
+    }
+
+    /**
+     * Returns the JaVelo graph obtained from the files located in basePath, loaded in the given way,
+     * whose nodes and edges are stored in memory with the given layout
+     *
+     * @param basePath : the path to the directory of the stored file
+     * @param loadMode : the way the files are loaded
+     * @param layout   : the way the nodes and edges are stored in memory
+     * @return the JaVelo graph
+     * @throws IOException in the event of an input/output error
+     */
+    public static Graph loadFrom(Path basePath, LoadMode loadMode, Layout layout) throws IOException {
         ByteBuffer sectorsBuffer, edgesBuffer;
         ShortBuffer elevationsBuffer;
         IntBuffer nodesBuffer, profileIdsBuffer;
         LongBuffer attributesBuffer;
+        List<ByteBuffer> buffers = new ArrayList<>();
+        List<FileLoadMetrics> metrics = new ArrayList<>();
 
-        nodesBuffer = extractBuffer(basePath.resolve("nodes.bin")).asIntBuffer();
-        profileIdsBuffer = extractBuffer(basePath.resolve("profile_ids.bin")).asIntBuffer();
-        sectorsBuffer = extractBuffer(basePath.resolve("sectors.bin"));
-        edgesBuffer = extractBuffer(basePath.resolve("edges.bin"));
-        elevationsBuffer = extractBuffer(basePath.resolve("elevations.bin")).asShortBuffer();
-        attributesBuffer = extractBuffer(basePath.resolve("attributes.bin")).asLongBuffer();
+        nodesBuffer = loadBuffer(basePath.resolve("nodes.bin"), loadMode, buffers, metrics).asIntBuffer();
+        profileIdsBuffer = loadBuffer(basePath.resolve("profile_ids.bin"), loadMode, buffers, metrics).asIntBuffer();
+        sectorsBuffer = loadBuffer(basePath.resolve("sectors.bin"), loadMode, buffers, metrics);
+        edgesBuffer = loadBuffer(basePath.resolve("edges.bin"), loadMode, buffers, metrics);
+        elevationsBuffer = loadBuffer(basePath.resolve("elevations.bin"), loadMode, buffers, metrics).asShortBuffer();
+        attributesBuffer = loadBuffer(basePath.resolve("attributes.bin"), loadMode, buffers, metrics).asLongBuffer();
 
         GraphNodes nodes = new GraphNodes(nodesBuffer);
         GraphSectors sectors = new GraphSectors(sectorsBuffer);
         GraphEdges edges = new GraphEdges(edgesBuffer, profileIdsBuffer, elevationsBuffer);
 
-        List<AttributeSet> attributeSets = new ArrayList<>();
-        for (int i = 0; i < attributesBuffer.capacity(); i++) {
-            attributeSets.add(new AttributeSet(attributesBuffer.get(i)));
-        }
+        long[] attributeBits = new long[attributesBuffer.capacity()];
+        attributesBuffer.get(0, attributeBits);
 
-        return new Graph(nodes, sectors, edges, attributeSets);
+        GraphTopology topology = new BufferGraphTopology(nodes, edges);
+        if (layout == Layout.ARRAYS) topology = new ArrayGraphTopology(topology);
+
+        CompletableFuture<List<FileLoadMetrics>> loadMetrics = loadMode == LoadMode.PRELOAD ?
+                preloadInBackground(buffers, metrics) :
+                CompletableFuture.completedFuture(List.copyOf(metrics));
+        return new Graph(topology, sectors, edges, attributeBits, loadMetrics);
     }
 
     /**
-     * Returns the extracted buffer from the file
+     * Returns the buffer containing the given file, loaded in the given way, after having added it
+     * and the metrics of its loading to the given lists
      *
-     * @param pathFile : path to the binary file we want ti extract from (Path)
-     * @return the extracted buffer
+     * @param pathFile : path to the binary file
+     * @param loadMode : the way the file is loaded
+     * @param buffers  : list of the buffers of the files already loaded
+     * @param metrics  : list of the metrics of the files already loaded
+     * @return the buffer
      * @throws IOException in the event of an input/output error
      */
-    private static ByteBuffer extractBuffer(Path pathFile) throws IOException {
+    private static ByteBuffer loadBuffer(Path pathFile, LoadMode loadMode,
+                                         List<ByteBuffer> buffers, List<FileLoadMetrics> metrics) throws IOException {
+        long t0 = System.nanoTime();
+        ByteBuffer buffer;
         try (FileChannel channel = FileChannel.open(pathFile)) {
-            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long size = channel.size();
+            if (loadMode == LoadMode.LAZY || loadMode == LoadMode.PRELOAD) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                Preconditions.checkArgument(size <= Integer.MAX_VALUE);
+                buffer = loadMode == LoadMode.HEAP ?
+                        ByteBuffer.allocate((int) size) :
+                        ByteBuffer.allocateDirect((int) size);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) throw new EOFException(pathFile.toString());
+                }
+                buffer.flip();
+            }
         }
+        buffers.add(buffer);
+        metrics.add(new FileLoadMetrics(pathFile.getFileName().toString(), buffer.capacity(),
+                System.nanoTime() - t0, isResident(buffer)));
+        return buffer;
+    }
+
+    /**
+     * Starts loading the given memory-mapped buffers in physical memory on a background thread,
+     * and returns the future metrics of their loading, obtained by adding the loading time to the given ones
+     *
+     * @param buffers : the memory-mapped buffers of the files
+     * @param metrics : the metrics of the mapping of the files
+     * @return the future metrics
+     */
+    private static CompletableFuture<List<FileLoadMetrics>> preloadInBackground(List<ByteBuffer> buffers,
+                                                                                List<FileLoadMetrics> metrics) {
+        CompletableFuture<List<FileLoadMetrics>> loadMetrics = new CompletableFuture<>();
+        Thread preloader = new Thread(() -> {
+            try {
+                List<FileLoadMetrics> loadedMetrics = new ArrayList<>();
+                for (int i = 0; i < buffers.size(); i++) {
+                    long t0 = System.nanoTime();
+                    // touches every page of the file, after advising the system that it will be needed
+                    ((MappedByteBuffer) buffers.get(i)).load();
+                    FileLoadMetrics mapMetrics = metrics.get(i);
+                    loadedMetrics.add(new FileLoadMetrics(mapMetrics.fileName(), mapMetrics.size(),
+                            mapMetrics.loadNanos() + System.nanoTime() - t0, isResident(buffers.get(i))));
+                }
+                loadMetrics.complete(List.copyOf(loadedMetrics));
+            } catch (RuntimeException e) {
+                loadMetrics.completeExceptionally(e);
+            }
+        }, "graph-preloader");
+        preloader.setDaemon(true);
+        preloader.start();
+        return loadMetrics;
+    }
+
+    /**
+     * Returns true iff the content of the given buffer is in physical memory: always for buffers copied
+     * in memory, according to the operating system for memory-mapped ones
+     *
+     * @param buffer : the buffer
+     * @return true iff the buffer is resident
+     */
+    private static boolean isResident(ByteBuffer buffer) {
+        return !(buffer instanceof MappedByteBuffer mapped) || mapped.isLoaded();
+    }
+
+    /**
+     * Returns the metrics of the loading of the files of the graph, available once they are completely loaded
+     * (in background for LoadMode.PRELOAD), empty if the graph has not been loaded from files
+     *
+     * @return the future metrics, one per file
+     */
+    public CompletableFuture<List<FileLoadMetrics>> loadMetrics() {
+        return loadMetrics;
     }
 
     /**
@@ -95,7 +238,7 @@ public final class Graph {
      * @return the number of nodes
      */
     public int nodeCount() {
-        return nodes.count();
+        return topology.nodeCount();
     }
 
     /**
@@ -105,7 +248,36 @@ public final class Graph {
      * @return the point (PointCh)
      */
     public PointCh nodePoint(int nodeId) {
-        return new PointCh(nodes.nodeE(nodeId), nodes.nodeN(nodeId));
+        return new PointCh(topology.nodeE(nodeId), topology.nodeN(nodeId));
+    }
+
+    /**
+     * Returns the total number of edges in the graph
+     *
+     * @return the number of edges
+     */
+    public int edgeCount() {
+        return topology.edgeCount();
+    }
+
+    /**
+     * Returns the east coordinate of the given node, without creating any point
+     *
+     * @param nodeId : ID of the node
+     * @return the east coordinate (meters)
+     */
+    public double nodeE(int nodeId) {
+        return topology.nodeE(nodeId);
+    }
+
+    /**
+     * Returns the north coordinate of the given node, without creating any point
+     *
+     * @param nodeId : ID of the node
+     * @return the north coordinate (meters)
+     */
+    public double nodeN(int nodeId) {
+        return topology.nodeN(nodeId);
     }
 
     /**
@@ -115,7 +287,7 @@ public final class Graph {
      * @return the number of edges
      */
     public int nodeOutDegree(int nodeId) {
-        return nodes.outDegree(nodeId);
+        return topology.nodeOutDegree(nodeId);
     }
 
     /**
@@ -126,7 +298,47 @@ public final class Graph {
      * @return the identity of the edgeIndex-th edge
      */
     public int nodeOutEdgeId(int nodeId, int edgeIndex) {
-        return nodes.edgeId(nodeId, edgeIndex);
+        return topology.nodeOutEdgeId(nodeId, edgeIndex);
+    }
+
+    /**
+     * Returns the number of edges arriving at the given node
+     * (the reverse adjacency is built on the first call to one of the in-edge methods)
+     *
+     * @param nodeId : ID of the node
+     * @return the number of edges
+     */
+    public int nodeInDegree(int nodeId) {
+        return inEdges().inDegree(nodeId);
+    }
+
+    /**
+     * Returns the identity of the edgeIndex-th edge arriving at the given node
+     *
+     * @param nodeId    : the id of the node
+     * @param edgeIndex : index of the edge
+     * @return the identity of the edgeIndex-th edge
+     */
+    public int nodeInEdgeId(int nodeId, int edgeIndex) {
+        return inEdges().edgeId(nodeId, edgeIndex);
+    }
+
+    /**
+     * Returns the reverse adjacency of the graph, building it if it does not exist yet
+     *
+     * @return the reverse adjacency
+     */
+    private GraphInEdges inEdges() {
+        GraphInEdges result = inEdges;
+        if (result == null) {
+            synchronized (this) {
+                result = inEdges;
+                if (result == null) {
+                    inEdges = result = new GraphInEdges(topology);
+                }
+            }
+        }
+        return result;
     }
 
     /**
@@ -140,25 +352,85 @@ public final class Graph {
      */
 
     public int nodeClosestTo(PointCh point, double searchDistance) {
-
-        if (point == null){
+        if (point == null) {
             return -1;
         }
+        return sectors.nodeClosestTo(topology, point.e(), point.n(), searchDistance);
+    }
 
-        double closestDistance = Math.pow(searchDistance, 2);
-        int closestNodeIdentity = -1;
-        double distanceToSquared;
+    /**
+     * Returns the identities of the (at most) count nodes closest to the given point, at the given maximum
+     * searchDistance (in meters, possibly infinite), whose identities satisfy the given filter, sorted by
+     * increasing distance (of two nodes at the same distance, the one with the smallest identity comes first)
+     *
+     * @param point          : point of interest
+     * @param count          : maximal number of nodes
+     * @param searchDistance : distance (radius) of the search
+     * @param filter         : predicate the identities of the nodes must satisfy
+     *                       (e.g. having at least one edge whose cost factor is finite)
+     * @return the identities of the nodes, closest first
+     * @throws IllegalArgumentException if the count or the distance is negative
+     */
+    public int[] nodesClosestTo(PointCh point, int count, double searchDistance, IntPredicate filter) {
+        return sectors.nodesClosestTo(topology, point.e(), point.n(), searchDistance, count, filter);
+    }
 
-        for (GraphSectors.Sector sector : sectors.sectorsInArea(point, searchDistance)) {
-            for (int nodeId = sector.startNodeId(); nodeId < sector.endNodeId(); nodeId++) {
-                distanceToSquared = nodePoint(nodeId).squaredDistanceTo(point);
-                if (distanceToSquared <= closestDistance) {
-                    closestDistance = distanceToSquared;
-                    closestNodeIdentity = nodeId;
-                }
-            }
+    /**
+     * Returns the identities of all the nodes at the given maximum distance (in meters) from the given point,
+     * whose identities satisfy the given filter, sorted by increasing distance
+     * (of two nodes at the same distance, the one with the smallest identity comes first)
+     *
+     * @param point  : point of interest
+     * @param radius : distance (radius) of the search
+     * @param filter : predicate the identities of the nodes must satisfy
+     * @return the identities of the nodes, closest first
+     * @throws IllegalArgumentException if the radius is negative
+     */
+    public int[] nodesWithin(PointCh point, double radius, IntPredicate filter) {
+        return sectors.nodesClosestTo(topology, point.e(), point.n(), radius, Integer.MAX_VALUE, filter);
+    }
+
+    /**
+     * Returns the position, on the edge closest to the given point at the given maximum searchDistance
+     * (in meters), of the point of the edge closest to the given point, or null if there is no such edge.
+     * The edges are seen as straight segments between their nodes, like in the routes.
+     *
+     * @param point          : point of interest
+     * @param searchDistance : distance (radius) of the search
+     * @return the position on the closest edge, or null
+     * @throws IllegalArgumentException if the distance is negative
+     */
+    public EdgePosition edgeClosestTo(PointCh point, double searchDistance) {
+        if (point == null) {
+            return null;
+        }
+        int edgeId = sectors.edgeClosestTo(topology, point.e(), point.n(), searchDistance, segmentLengths());
+        if (edgeId == -1) {
+            return null;
+        }
+
+        int fromNodeId = edgeSourceNodeId(edgeId);
+        int toNodeId = edgeTargetNodeId(edgeId);
+        double segmentLength = Math2.norm(nodeE(toNodeId) - nodeE(fromNodeId), nodeN(toNodeId) - nodeN(fromNodeId));
+        double proportion = segmentLength == 0 ? 0 : Math2.clamp(0, Math2.projectionLength(
+                nodeE(fromNodeId), nodeN(fromNodeId), nodeE(toNodeId), nodeN(toNodeId), point.e(), point.n())
+                / segmentLength, 1);
+        return new EdgePosition(edgeId, proportion * edgeLength(edgeId));
+    }
+
+    /**
+     * Returns the largest straight-line distances between the two nodes of the edges leaving every sector,
+     * computed on the first call (concurrent first calls may all compute them)
+     *
+     * @return the longest edges leaving the sectors
+     */
+    private GraphSectors.SegmentLengths segmentLengths() {
+        GraphSectors.SegmentLengths result = segmentLengths;
+        if (result == null) {
+            result = sectors.segmentLengths(topology);
+            segmentLengths = result;
         }
-        return closestNodeIdentity;
+        return result;
     }
 
     /**
@@ -168,7 +440,17 @@ public final class Graph {
      * @return the identity of the destination node
      */
     public int edgeTargetNodeId(int edgeId) {
-        return edges.targetNodeId(edgeId);
+        return topology.edgeTargetNodeId(edgeId);
+    }
+
+    /**
+     * Returns the node ID from which the given edge leaves
+     *
+     * @param edgeId : ID of the edge
+     * @return the identity of the source node
+     */
+    public int edgeSourceNodeId(int edgeId) {
+        return inEdges().sourceNodeId(edgeId);
     }
 
     /**
@@ -178,7 +460,7 @@ public final class Graph {
      * @return a boolean value
      */
     public boolean edgeIsInverted(int edgeId) {
-        return edges.isInverted(edgeId);
+        return topology.edgeIsInverted(edgeId);
     }
 
     /**
@@ -188,7 +470,18 @@ public final class Graph {
      * @return the AttributeSet of OSM attributes
      */
     public AttributeSet edgeAttributes(int edgeId) {
-        return attributeSets.get(edges.attributesIndex(edgeId));
+        return new AttributeSet(edgeAttributeBits(edgeId));
+    }
+
+    /**
+     * Returns the bits of the AttributeSet of OSM attributes which belong to the edge,
+     * without creating any object (see AttributeSet#bits).
+     *
+     * @param edgeId : the id of the edge
+     * @return the bits of the AttributeSet of OSM attributes
+     */
+    public long edgeAttributeBits(int edgeId) {
+        return attributeBits[topology.edgeAttributesIndex(edgeId)];
     }
 
     /**
@@ -198,7 +491,7 @@ public final class Graph {
      * @return the length of the edge
      */
     public double edgeLength(int edgeId) {
-        return edges.length(edgeId);
+        return topology.edgeLength(edgeId);
     }
 
     /**
@@ -208,20 +501,131 @@ public final class Graph {
      * @return the total elevation gain
      */
     public double edgeElevationGain(int edgeId) {
-        return edges.elevationGain(edgeId);
+        return topology.edgeElevationGain(edgeId);
     }
 
     /**
      * Returns the longitudinal profile of the given identity edge,
-     * as a function, and Double.NaN if the edge has no profile
+     * as a function, and Double.NaN if the edge has no profile.
+     * The samples of the profile are only decoded (or taken from the profile cache of the graph)
+     * the first time the function is applied.
      *
      * @param edgeId : ID of the edge
      * @return the longitudinal profile of the given identity edge
      */
     public DoubleUnaryOperator edgeProfile(int edgeId) {
         return (edges.hasProfile(edgeId) ?
-                Functions.sampled(edges.profileSamples(edgeId), edgeLength(edgeId)) :
+                new LazyProfile(profileCache, edgeId) :
                 Functions.constant(Double.NaN));
     }
 
+    /**
+     * Returns the cache of the decoded edge profiles, whose hits and misses can be observed
+     *
+     * @return the cache
+     */
+    public EdgeProfileCache edgeProfileCache() {
+        return profileCache;
+    }
+
+    /**
+     * Returns the longitudinal profile of the given identity edge, which has a profile,
+     * with its samples decoded
+     *
+     * @param edgeId : ID of the edge
+     * @return the longitudinal profile
+     */
+    private DoubleUnaryOperator decodedEdgeProfile(int edgeId) {
+        return Functions.sampled(edges.profileSamples(edgeId), edgeLength(edgeId));
+    }
+
+    /**
+     * Profile of an edge which gets its decoded profile from the cache the first time it is applied.
+     * The decoded profile is immutable, so that it can be published without synchronization:
+     * at worst, several threads get it from the cache.
+     */
+    private static final class LazyProfile implements DoubleUnaryOperator {
+        private final EdgeProfileCache profileCache;
+        private final int edgeId;
+        private DoubleUnaryOperator profile;
+
+        private LazyProfile(EdgeProfileCache profileCache, int edgeId) {
+            this.profileCache = profileCache;
+            this.edgeId = edgeId;
+        }
+
+        @Override
+        public double applyAsDouble(double position) {
+            DoubleUnaryOperator decodedProfile = profile;
+            if (decodedProfile == null) {
+                decodedProfile = profileCache.profile(edgeId);
+                profile = decodedProfile;
+            }
+            return decodedProfile.applyAsDouble(position);
+        }
+    }
+
+
+    /**
+     * Way the files of a graph are loaded
+     */
+    public enum LoadMode {
+        /**
+         * Files memory-mapped, whose pages are read from the disk when they are first accessed (default)
+         */
+        LAZY,
+        /**
+         * Files memory-mapped, whose pages are all read from the disk by a background thread
+         */
+        PRELOAD,
+        /**
+         * Files copied in buffers of the Java heap
+         */
+        HEAP,
+        /**
+         * Files copied in direct buffers, outside the Java heap
+         */
+        DIRECT
+    }
+
+    /**
+     * Way the nodes and edges of a graph are stored in memory
+     */
+    public enum Layout {
+        /**
+         * Nodes and edges read directly from the buffers of the files (default)
+         */
+        BUFFERS,
+        /**
+         * Nodes and edges copied in one array per field, faster to read by the route computations
+         * but taking some time and memory to build
+         */
+        ARRAYS
+    }
+
+    /**
+     * Position on an edge of the graph
+     *
+     * @param edgeId   : ID of the edge
+     * @param position : position along the edge, from its source node (meters)
+     */
+    public record EdgePosition(int edgeId, double position) {
+        /**
+         * @throws IllegalArgumentException if the position is negative
+         */
+        public EdgePosition {
+            Preconditions.checkArgument(position >= 0);
+        }
+    }
+
+    /**
+     * Metrics of the loading of a file of the graph
+     *
+     * @param fileName  : name of the file
+     * @param size      : size of the file, in bytes
+     * @param loadNanos : time taken to map or copy the file (and to preload it), in nanoseconds
+     * @param resident  : true iff the whole file was in physical memory once loaded
+     */
+    public record FileLoadMetrics(String fileName, long size, long loadNanos, boolean resident) {
+    }
 }
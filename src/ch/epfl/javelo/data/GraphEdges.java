@@ -7,9 +7,7 @@ import ch.epfl.javelo.Q28_4;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Objects;
 
 
 /**
@@ -31,6 +29,15 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
     private static final int OFFSET_IDS_OSM = OFFSET_ELEVATION_GAIN + 2;
     private static final int NUMBER_OF_INTS_PER_EDGE = OFFSET_IDS_OSM + 2;
 
+    /**
+     * Returns the total number of edges
+     *
+     * @return the number of edges
+     */
+    public int count() {
+        return edgesBuffer.capacity() / NUMBER_OF_INTS_PER_EDGE;
+    }
+
     /**
      * Returns true iff the edge goes in the opposite direction to the OSM road it belongs to
      *
@@ -87,6 +94,21 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
         return Bits.extractUnsigned(profileId, 30, 2) != 0;
     }
 
+    /**
+     * Returns the number of samples of the profile of the edge with the given identity,
+     * which is 0 if the edge does not have a profile
+     *
+     * @param edgeId : ID of the edge
+     * @return the number of samples
+     */
+    public int profileSampleCount(int edgeId) {
+        if (!hasProfile(edgeId)) {
+            return 0;
+        }
+        int lengthIndex = NUMBER_OF_INTS_PER_EDGE * edgeId + OFFSET_LENGTH;
+        return 1 + Math2.ceilDiv(Short.toUnsignedInt(edgesBuffer.getShort(lengthIndex)), Q28_4.ofInt(2));
+    }
+
     /**
      * Returns the array of samples of the profile of the edge with the given identity,
      * which is empty if the edge does not have a profile
@@ -95,80 +117,79 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
      * @return the float array
      */
     public float[] profileSamples(int edgeId) {
-        if (!hasProfile(edgeId)) {
-            return new float[]{};
+        float[] samples = new float[profileSampleCount(edgeId)];
+        profileSamples(edgeId, samples, 0);
+        return samples;
+    }
+
+    /**
+     * Writes the samples of the profile of the edge with the given identity in the given array,
+     * from the given index on, without allocating anything, and returns their number
+     * (the samples of an inverted edge are written from the last one to the first one)
+     *
+     * @param edgeId  : ID of the edge
+     * @param samples : array receiving the samples
+     * @param offset  : index of the array where the first sample is written
+     * @return the number of samples written, 0 if the edge does not have a profile
+     * @throws IndexOutOfBoundsException if the samples do not fit in the array from the given index
+     */
+    public int profileSamples(int edgeId, float[] samples, int offset) {
+        int nbSamples = profileSampleCount(edgeId);
+        if (nbSamples == 0) {
+            return 0;
         }
+        Objects.checkFromIndexSize(offset, nbSamples, samples.length);
 
-        int lengthIndex = NUMBER_OF_INTS_PER_EDGE * edgeId + OFFSET_LENGTH;
-        int nbSamples = 1 + Math2.ceilDiv(Short.toUnsignedInt(edgesBuffer.getShort(lengthIndex)), Q28_4.ofInt(2));
+        int profileId = profileIds.get(edgeId);
+        int idFirstSample = Bits.extractUnsigned(profileId, 0, 30);
+        boolean inverted = isInverted(edgeId);
+        int step = inverted ? -1 : 1;
+        int index = inverted ? offset + nbSamples - 1 : offset;
 
-        ArrayList<Float> profileSamples = new ArrayList<>();
-        int idFirstSample = Bits.extractUnsigned(profileIds.get(edgeId), 0, 30);
-        profileSamples.add(Q28_4.asFloat(Short.toUnsignedInt(elevations.get(idFirstSample))));
+        float sample = Q28_4.asFloat(Short.toUnsignedInt(elevations.get(idFirstSample)));
+        samples[index] = sample;
 
-        int profileId = profileIds.get(edgeId);
         switch (Bits.extractUnsigned(profileId, 30, 2)) {
             case 1 -> {
                 for (int j = 1; j < nbSamples; j++) {
-                    profileSamples.add(
-                            Q28_4.asFloat(
-                                    Short.toUnsignedInt(
-                                            elevations.get(idFirstSample + j)
-                                    )
-                            )
-                    );
+                    index += step;
+                    samples[index] = Q28_4.asFloat(Short.toUnsignedInt(elevations.get(idFirstSample + j)));
                 }
             }
 
-            case 2 -> updateArrayFromCompressed(8, nbSamples, idFirstSample, profileSamples);
-
-            case 3 -> updateArrayFromCompressed(4, nbSamples, idFirstSample, profileSamples);
-        }
-
-        if (isInverted(edgeId)) {
-            Collections.reverse(profileSamples);
-        }
-
-        return toArray(profileSamples);
-    }
+            case 2 -> decodeCompressed(8, nbSamples, idFirstSample, sample, samples, index, step);
 
-    /**
-     * Returns a float array containing the same elements as the list
-     *
-     * @param list : list containing variables of type Float
-     * @return float array
-     */
-    private float[] toArray(List<Float> list) {
-        float[] toArray = new float[list.size()];
-        for (int z = 0; z < list.size(); z++) {
-            toArray[z] = list.get(z);
+            case 3 -> decodeCompressed(4, nbSamples, idFirstSample, sample, samples, index, step);
         }
-        return toArray;
+        return nbSamples;
     }
 
     /**
-     * Updates the profile samples list
+     * Writes the samples of a compressed profile following the first one, each of them being the previous one
+     * plus a difference stored on the given number of bits (several differences per short)
      *
-     * @param bitsPerValue   : bits per value in the compressed format
-     * @param nbSamples      : total number of samples on the edge
-     * @param idFirstSample  : ID of the first sample
-     * @param profileSamples : list that stores the samples (already contains the first one)
+     * @param bitsPerValue  : bits per value in the compressed format
+     * @param nbSamples     : total number of samples on the edge
+     * @param idFirstSample : ID of the first sample
+     * @param firstSample   : value of the first sample
+     * @param samples       : array receiving the samples
+     * @param index         : index of the array where the first sample has been written
+     * @param step          : difference between the indices of two consecutive samples (1 or -1)
      */
-    private void updateArrayFromCompressed
-    (int bitsPerValue, int nbSamples, int idFirstSample, List<Float> profileSamples) {
+    private void decodeCompressed(int bitsPerValue, int nbSamples, int idFirstSample,
+                                  float firstSample, float[] samples, int index, int step) {
+        float sample = firstSample;
         int i = 1;
         int idCounter = 1;
-        int bitCounter = 16 - bitsPerValue;
 
         while (i < nbSamples) {
             short elevationShort = elevations.get(idFirstSample + idCounter);
-            while (bitCounter >= 0 && i < nbSamples) {
-                profileSamples.add(profileSamples.get(i - 1) +
-                        Q28_4.asFloat(Bits.extractSigned(elevationShort, bitCounter, bitsPerValue)));
-                bitCounter -= bitsPerValue;
+            for (int bitCounter = 16 - bitsPerValue; bitCounter >= 0 && i < nbSamples; bitCounter -= bitsPerValue) {
+                sample += Q28_4.asFloat(Bits.extractSigned(elevationShort, bitCounter, bitsPerValue));
+                index += step;
+                samples[index] = sample;
                 i += 1;
             }
-            bitCounter = 16 - bitsPerValue;
             idCounter++;
         }
     }
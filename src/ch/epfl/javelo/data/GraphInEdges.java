@@ -0,0 +1,84 @@
+package ch.epfl.javelo.data;
+
+import java.util.Arrays;
+
+
+/**
+ * Reverse adjacency of the graph, i.e. for each node the edges arriving at it,
+ * and for each edge the node it leaves from.
+ * It is built from the topology of the graph since the binary files only store out-edges.
+ *
+ * @author Wesley Nana Davies(344592)
+ * @author David Farah (341017)
+ */
+final class GraphInEdges {
+    private final int[] firstInEdgeIndex;
+    private final int[] inEdgeIds;
+    private final int[] edgeSourceNodeIds;
+
+
+    /**
+     * Constructor of the class which builds the reverse adjacency of the given nodes and edges
+     *
+     * @param topology : graph nodes and edges
+     */
+    GraphInEdges(GraphTopology topology) {
+        int nodeCount = topology.nodeCount();
+        int edgeCount = topology.edgeCount();
+
+        edgeSourceNodeIds = new int[edgeCount];
+        Arrays.fill(edgeSourceNodeIds, -1);
+        firstInEdgeIndex = new int[nodeCount + 1];
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            for (int i = 0; i < topology.nodeOutDegree(nodeId); i++) {
+                int edgeId = topology.nodeOutEdgeId(nodeId, i);
+                edgeSourceNodeIds[edgeId] = nodeId;
+                firstInEdgeIndex[topology.edgeTargetNodeId(edgeId) + 1] += 1;
+            }
+        }
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            firstInEdgeIndex[nodeId + 1] += firstInEdgeIndex[nodeId];
+        }
+
+        // filling the in-edges of every node, using a copy of the start indexes as insertion cursors
+        inEdgeIds = new int[firstInEdgeIndex[nodeCount]];
+        int[] nextInEdgeIndex = Arrays.copyOf(firstInEdgeIndex, nodeCount);
+        for (int edgeId = 0; edgeId < edgeCount; edgeId++) {
+            if (edgeSourceNodeIds[edgeId] != -1) {
+                inEdgeIds[nextInEdgeIndex[topology.edgeTargetNodeId(edgeId)]++] = edgeId;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of edges arriving at the given node
+     *
+     * @param nodeId : ID of the node
+     * @return the number of edges
+     */
+    int inDegree(int nodeId) {
+        return firstInEdgeIndex[nodeId + 1] - firstInEdgeIndex[nodeId];
+    }
+
+    /**
+     * Returns the identity of the edgeIndex-th edge arriving at the given node
+     *
+     * @param nodeId    : ID of the node
+     * @param edgeIndex : index of the edge for the given node
+     * @return the identity of the edge
+     */
+    int edgeId(int nodeId, int edgeIndex) {
+        assert 0 <= edgeIndex && edgeIndex < inDegree(nodeId);
+        return inEdgeIds[firstInEdgeIndex[nodeId] + edgeIndex];
+    }
+
+    /**
+     * Returns the identity of the node the given edge leaves from
+     *
+     * @param edgeId : ID of the edge
+     * @return the ID of the node
+     */
+    int sourceNodeId(int edgeId) {
+        return edgeSourceNodeIds[edgeId];
+    }
+}
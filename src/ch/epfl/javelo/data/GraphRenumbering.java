@@ -0,0 +1,329 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.projection.SwissBounds;
+import ch.epfl.javelo.routing.CachedCostFunction;
+import ch.epfl.javelo.routing.CityBikeCF;
+import ch.epfl.javelo.routing.Route;
+import ch.epfl.javelo.routing.RouteComputer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+
+/**
+ * GraphRenumbering
+ * Offline tool which rewrites the six files of a JaVelo graph with its nodes numbered along a Hilbert curve,
+ * so that nodes close to each other have close IDs and the route computations read memory which is
+ * mostly already in the processor caches.
+ * <p>
+ * The nodes of a sector must stay contiguous, so the sectors are ordered along a Hilbert curve over the
+ * 128x128 sectors of SwissBounds, and the nodes of each sector along a finer Hilbert curve over the sector.
+ * The edges are then numbered in the order of the nodes they leave from, and the samples of their profiles
+ * in the order of the edges. The attribute sets are unchanged.
+ * <p>
+ * Any file computed from node or edge IDs (contraction hierarchy, landmark table) has to be built again.
+ *
+ * @author David Farah (341017)
+ * @author Wesley Nana Davies(344592)
+ */
+public final class GraphRenumbering {
+    private static final int SECTORS_ORDER = 7; // 2^7 = 128 sectors per side
+    private static final int SECTOR_CELLS_ORDER = 8; // 2^8 = 256 cells per side of a sector
+    private static final int SECTORS_PER_SIDE = 1 << SECTORS_ORDER;
+    private static final int BYTES_PER_SECTOR = Integer.BYTES + Short.BYTES;
+    private static final int BYTES_PER_EDGE = Integer.BYTES + 3 * Short.BYTES;
+    private static final int INTS_PER_NODE = 3;
+    private static final int VERIFIED_ROUTES_COUNT = 200;
+    private static final int CLOSE_NODE_IDS_GAP = 256;
+
+    private GraphRenumbering() {
+    }
+
+    /**
+     * Writes, in the target directory, the files of the graph stored in the source directory
+     * with its nodes and edges renumbered along a Hilbert curve
+     *
+     * @param sourcePath : directory of the graph
+     * @param targetPath : directory of the renumbered graph, created if needed
+     * @return the new ID of every node, indexed by its ID in the source graph
+     * @throws IOException              in the event of an input/output error
+     * @throws IllegalArgumentException if both directories are the same
+     */
+    public static int[] renumber(Path sourcePath, Path targetPath) throws IOException {
+        Preconditions.checkArgument(!Files.isSameFile(sourcePath, Files.createDirectories(targetPath)));
+        IntBuffer nodesBuffer = map(sourcePath.resolve("nodes.bin")).asIntBuffer();
+        ByteBuffer sectorsBuffer = map(sourcePath.resolve("sectors.bin"));
+        ByteBuffer edgesBuffer = map(sourcePath.resolve("edges.bin"));
+        IntBuffer profileIds = map(sourcePath.resolve("profile_ids.bin")).asIntBuffer();
+        ShortBuffer elevations = map(sourcePath.resolve("elevations.bin")).asShortBuffer();
+        GraphNodes nodes = new GraphNodes(nodesBuffer);
+        GraphEdges edges = new GraphEdges(edgesBuffer, profileIds, elevations);
+
+        int nodeCount = nodes.count();
+        int edgeCount = edges.count();
+        int[] nodeSectors = nodeSectors(nodes, sectorsBuffer);
+        int[] oldNodeIds = hilbertOrder(nodes, nodeSectors);
+        int[] newNodeIds = new int[nodeCount];
+        for (int newNodeId = 0; newNodeId < nodeCount; newNodeId++) {
+            newNodeIds[oldNodeIds[newNodeId]] = newNodeId;
+        }
+
+        // edges numbered in the order of their source node, keeping the edges which leave no node at the end
+        int[] oldEdgeIds = new int[edgeCount];
+        int[] newEdgeIds = new int[edgeCount];
+        Arrays.fill(newEdgeIds, -1);
+        ByteBuffer newNodes = ByteBuffer.allocate(INTS_PER_NODE * Integer.BYTES * nodeCount);
+        int nextEdgeId = 0;
+        for (int oldNodeId : oldNodeIds) {
+            int outDegree = nodes.outDegree(oldNodeId);
+            newNodes.putInt(nodesBuffer.get(INTS_PER_NODE * oldNodeId))
+                    .putInt(nodesBuffer.get(INTS_PER_NODE * oldNodeId + 1))
+                    .putInt(outDegree << 28 | nextEdgeId);
+            for (int i = 0; i < outDegree; i++) {
+                int oldEdgeId = nodes.edgeId(oldNodeId, i);
+                newEdgeIds[oldEdgeId] = nextEdgeId;
+                oldEdgeIds[nextEdgeId++] = oldEdgeId;
+            }
+        }
+        for (int oldEdgeId = 0; oldEdgeId < edgeCount; oldEdgeId++) {
+            if (newEdgeIds[oldEdgeId] == -1) oldEdgeIds[nextEdgeId++] = oldEdgeId;
+        }
+
+        // profile samples copied in the order of the edges, once per profile shared by an edge and its reverse
+        ByteBuffer newEdges = ByteBuffer.allocate(BYTES_PER_EDGE * edgeCount);
+        ByteBuffer newProfileIds = ByteBuffer.allocate(Integer.BYTES * edgeCount);
+        ByteBuffer newElevations = ByteBuffer.allocate(Short.BYTES * elevations.capacity());
+        int[] newFirstSampleIds = new int[elevations.capacity()];
+        Arrays.fill(newFirstSampleIds, -1);
+        for (int oldEdgeId : oldEdgeIds) {
+            int edgeIndex = BYTES_PER_EDGE * oldEdgeId;
+            int targetNodeId = newNodeIds[edges.targetNodeId(oldEdgeId)];
+            newEdges.putInt(edges.isInverted(oldEdgeId) ? ~targetNodeId : targetNodeId)
+                    .putShort(edgesBuffer.getShort(edgeIndex + Integer.BYTES))
+                    .putShort(edgesBuffer.getShort(edgeIndex + Integer.BYTES + Short.BYTES))
+                    .putShort(edgesBuffer.getShort(edgeIndex + Integer.BYTES + 2 * Short.BYTES));
+
+            int profileId = profileIds.get(oldEdgeId);
+            if (!edges.hasProfile(oldEdgeId)) {
+                newProfileIds.putInt(profileId);
+                continue;
+            }
+            int profileType = profileId >>> 30;
+            int firstSampleId = profileId & ((1 << 30) - 1);
+            if (newFirstSampleIds[firstSampleId] == -1) {
+                newFirstSampleIds[firstSampleId] = newElevations.position() / Short.BYTES;
+                int shortsCount = profileShortsCount(profileType, edges.profileSampleCount(oldEdgeId));
+                for (int i = 0; i < shortsCount; i++) newElevations.putShort(elevations.get(firstSampleId + i));
+            }
+            newProfileIds.putInt(profileType << 30 | newFirstSampleIds[firstSampleId]);
+        }
+
+        // nodes of every sector are contiguous since the nodes are sorted by sector first
+        ByteBuffer newSectors = ByteBuffer.allocate(sectorsBuffer.capacity());
+        for (int newNodeId = nodeCount - 1; newNodeId >= 0; newNodeId--) {
+            int sectorIndex = BYTES_PER_SECTOR * nodeSectors[oldNodeIds[newNodeId]];
+            newSectors.putInt(sectorIndex, newNodeId);
+            newSectors.putShort(sectorIndex + Integer.BYTES,
+                    (short) (newSectors.getShort(sectorIndex + Integer.BYTES) + 1));
+        }
+
+        write(targetPath.resolve("nodes.bin"), newNodes);
+        write(targetPath.resolve("sectors.bin"), newSectors.position(newSectors.capacity()));
+        write(targetPath.resolve("edges.bin"), newEdges);
+        write(targetPath.resolve("profile_ids.bin"), newProfileIds);
+        write(targetPath.resolve("elevations.bin"), newElevations);
+        Files.copy(sourcePath.resolve("attributes.bin"), targetPath.resolve("attributes.bin"),
+                StandardCopyOption.REPLACE_EXISTING);
+        return newNodeIds;
+    }
+
+    /**
+     * Renumbers the JaVelo graph stored in the directory given as first argument, writes it in the directory
+     * given as second argument, and checks that random routes computed in both graphs are identical.
+     *
+     * @param args : directory of the graph and directory of the renumbered graph
+     * @throws IOException in the event of an input/output error
+     */
+    public static void main(String[] args) throws IOException {
+        Path sourcePath = Path.of(args.length > 0 ? args[0] : "javelo-data");
+        Path targetPath = Path.of(args.length > 1 ? args[1] : sourcePath + "-hilbert");
+
+        long t0 = System.nanoTime();
+        int[] newNodeIds = renumber(sourcePath, targetPath);
+        System.out.printf("Graphe renuméroté en %d ms\n", (System.nanoTime() - t0) / 1_000_000);
+
+        Graph sourceGraph = Graph.loadFrom(sourcePath);
+        Graph targetGraph = Graph.loadFrom(targetPath);
+        System.out.printf("Arêtes dont les extrémités ont des identités proches : %.1f %% avant, %.1f %% après\n",
+                100 * closeEdgesShare(sourceGraph), 100 * closeEdgesShare(targetGraph));
+
+        RouteComputer sourceRc = new RouteComputer(sourceGraph,
+                CachedCostFunction.of(sourceGraph, new CityBikeCF(sourceGraph)));
+        RouteComputer targetRc = new RouteComputer(targetGraph,
+                CachedCostFunction.of(targetGraph, new CityBikeCF(targetGraph)));
+        SplittableRandom rng = new SplittableRandom(2022);
+        int differentRoutesCount = 0;
+        for (int i = 0; i < VERIFIED_ROUTES_COUNT; i++) {
+            int fromNodeId = rng.nextInt(sourceGraph.nodeCount());
+            int toNodeId = rng.nextInt(sourceGraph.nodeCount());
+            if (fromNodeId == toNodeId) continue;
+            Route sourceRoute = sourceRc.bestRouteBetween(fromNodeId, toNodeId);
+            Route targetRoute = targetRc.bestRouteBetween(newNodeIds[fromNodeId], newNodeIds[toNodeId]);
+            boolean identical = sourceRoute == null
+                    ? targetRoute == null
+                    : targetRoute != null && sourceRoute.points().equals(targetRoute.points());
+            if (!identical) differentRoutesCount += 1;
+        }
+        System.out.printf("%d itinéraires différents sur %d\n", differentRoutesCount, VERIFIED_ROUTES_COUNT);
+    }
+
+    /**
+     * Returns the index (row by row) of the sector of every node, given by the sectors file
+     *
+     * @param nodes         : graph nodes
+     * @param sectorsBuffer : content of the sectors file
+     * @return the sector index of every node
+     * @throws IllegalArgumentException if a node does not belong to any sector
+     */
+    private static int[] nodeSectors(GraphNodes nodes, ByteBuffer sectorsBuffer) {
+        int[] nodeSectors = new int[nodes.count()];
+        Arrays.fill(nodeSectors, -1);
+        for (int sectorIndex = 0; sectorIndex < SECTORS_PER_SIDE * SECTORS_PER_SIDE; sectorIndex++) {
+            int startNodeId = sectorsBuffer.getInt(BYTES_PER_SECTOR * sectorIndex);
+            int nodesCount = Short.toUnsignedInt(sectorsBuffer.getShort(BYTES_PER_SECTOR * sectorIndex + Integer.BYTES));
+            Arrays.fill(nodeSectors, startNodeId, startNodeId + nodesCount, sectorIndex);
+        }
+        for (int sector : nodeSectors) Preconditions.checkArgument(sector != -1);
+        return nodeSectors;
+    }
+
+    /**
+     * Returns the IDs of the nodes sorted by the Hilbert index of their sector, then by the Hilbert index
+     * of their cell in the sector, then by ID
+     *
+     * @param nodes       : graph nodes
+     * @param nodeSectors : sector index of every node
+     * @return the IDs of the nodes, in their new order
+     */
+    private static int[] hilbertOrder(GraphNodes nodes, int[] nodeSectors) {
+        double sectorWidth = SwissBounds.WIDTH / SECTORS_PER_SIDE;
+        double sectorHeight = SwissBounds.HEIGHT / SECTORS_PER_SIDE;
+        int cellsPerSide = 1 << SECTOR_CELLS_ORDER;
+
+        // 14 bits of sector index, 16 bits of cell index and 32 bits of node ID, so that a sort of longs is enough
+        long[] keys = new long[nodes.count()];
+        for (int nodeId = 0; nodeId < keys.length; nodeId++) {
+            int sectorX = nodeSectors[nodeId] % SECTORS_PER_SIDE;
+            int sectorY = nodeSectors[nodeId] / SECTORS_PER_SIDE;
+            double x = (nodes.nodeE(nodeId) - SwissBounds.MIN_E) / sectorWidth - sectorX;
+            double y = (nodes.nodeN(nodeId) - SwissBounds.MIN_N) / sectorHeight - sectorY;
+            int cellX = Math.max(0, Math.min(cellsPerSide - 1, (int) (x * cellsPerSide)));
+            int cellY = Math.max(0, Math.min(cellsPerSide - 1, (int) (y * cellsPerSide)));
+            keys[nodeId] = (long) hilbertIndex(SECTORS_ORDER, sectorX, sectorY) << 48
+                    | (long) hilbertIndex(SECTOR_CELLS_ORDER, cellX, cellY) << 32
+                    | nodeId;
+        }
+        Arrays.sort(keys);
+
+        int[] oldNodeIds = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) oldNodeIds[i] = (int) keys[i];
+        return oldNodeIds;
+    }
+
+    /**
+     * Returns the index of the given cell along the Hilbert curve which goes through all the cells of a square
+     * of 2^order cells per side
+     *
+     * @param order : order of the curve
+     * @param x     : column of the cell
+     * @param y     : row of the cell
+     * @return the index of the cell, between 0 (included) and 4^order (excluded)
+     */
+    static int hilbertIndex(int order, int x, int y) {
+        int sideLength = 1 << order;
+        int index = 0;
+        for (int s = sideLength / 2; s > 0; s /= 2) {
+            int rx = (x & s) != 0 ? 1 : 0;
+            int ry = (y & s) != 0 ? 1 : 0;
+            index += s * s * ((3 * rx) ^ ry);
+            // rotating the quadrant so that the curve inside it starts and ends at the right corners
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = sideLength - 1 - x;
+                    y = sideLength - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the number of shorts of the elevations file storing a profile of the given type
+     *
+     * @param profileType  : type of the profile (1 uncompressed, 2 and 3 compressed on 8 and 4 bits)
+     * @param samplesCount : number of samples of the profile
+     * @return the number of shorts
+     */
+    private static int profileShortsCount(int profileType, int samplesCount) {
+        return switch (profileType) {
+            case 1 -> samplesCount;
+            case 2 -> 1 + Math2.ceilDiv(samplesCount - 1, 2);
+            default -> 1 + Math2.ceilDiv(samplesCount - 1, 4);
+        };
+    }
+
+    /**
+     * Returns the share of the edges of the given graph whose two nodes have IDs differing by less than
+     * CLOSE_NODE_IDS_GAP, i.e. whose nodes are probably stored in nearby cache lines
+     *
+     * @param graph : the graph
+     * @return the share of the edges, between 0 and 1
+     */
+    private static double closeEdgesShare(Graph graph) {
+        int closeEdgesCount = 0;
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int gap = Math.abs(graph.edgeTargetNodeId(graph.nodeOutEdgeId(nodeId, i)) - nodeId);
+                if (gap < CLOSE_NODE_IDS_GAP) closeEdgesCount += 1;
+            }
+        }
+        return (double) closeEdgesCount / Math.max(1, graph.edgeCount());
+    }
+
+    /**
+     * Returns the content of the given file, memory-mapped
+     *
+     * @param file : path of the file
+     * @return the content of the file
+     * @throws IOException in the event of an input/output error
+     */
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Writes the content of the given heap buffer, up to its position, to the given file
+     *
+     * @param file    : path of the file
+     * @param content : content of the file
+     * @throws IOException in the event of an input/output error
+     */
+    private static void write(Path file, ByteBuffer content) throws IOException {
+        Files.write(file, Arrays.copyOf(content.array(), content.position()));
+    }
+}
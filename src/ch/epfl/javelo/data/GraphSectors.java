@@ -1,12 +1,15 @@
 package ch.epfl.javelo.data;
 
+import ch.epfl.javelo.Math2;
 import ch.epfl.javelo.Preconditions;
 import ch.epfl.javelo.projection.PointCh;
 import ch.epfl.javelo.projection.SwissBounds;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.IntPredicate;
 
 
 /**
@@ -86,6 +89,344 @@ public record GraphSectors(ByteBuffer buffer) {
         return sectorsInArea;
     }
 
+    /**
+     * Returns the identity of the node of the given topology closest to the given point, at the given maximum
+     * distance, or -1 if there is none (of two nodes at the same distance, the one with the smallest identity).
+     * <p>
+     * The sectors are visited ring after ring around the sector containing the point, and the search stops
+     * as soon as the next ring is farther than the closest node found so far, without allocating anything.
+     *
+     * @param topology       : nodes of the graph
+     * @param e              : east coordinate of the point (meters)
+     * @param n              : north coordinate of the point (meters)
+     * @param searchDistance : maximal distance (meters)
+     * @return the identity of the closest node, or -1
+     * @throws IllegalArgumentException if the distance is negative
+     */
+    int nodeClosestTo(GraphTopology topology, double e, double n, double searchDistance) {
+        Preconditions.checkArgument(searchDistance >= 0);
+        double x = sectorsX(e);
+        double y = sectorsY(n);
+        int centerX = centerSector(x);
+        int centerY = centerSector(y);
+
+        double closestSquaredDistance = searchDistance * searchDistance;
+        int closestNodeId = -1;
+        for (int ring = 0; ring <= lastRing(centerX, centerY); ring++) {
+            if (ringSquaredDistance(x, y, centerX, centerY, ring) > closestSquaredDistance) break;
+            for (int i = 0; i < ringSectorsCount(ring); i++) {
+                int sectorIndex = ringSectorIndex(centerX, centerY, ring, i);
+                if (sectorIndex == -1 || sectorSquaredDistance(x, y, sectorIndex) > closestSquaredDistance) continue;
+
+                int endNodeId = endNodeId(sectorIndex);
+                for (int nodeId = startNodeId(sectorIndex); nodeId < endNodeId; nodeId++) {
+                    double squaredDistance = Math2.squaredNorm(topology.nodeE(nodeId) - e, topology.nodeN(nodeId) - n);
+                    if (squaredDistance < closestSquaredDistance
+                            || (squaredDistance == closestSquaredDistance && (closestNodeId == -1 || nodeId < closestNodeId))) {
+                        closestSquaredDistance = squaredDistance;
+                        closestNodeId = nodeId;
+                    }
+                }
+            }
+        }
+        return closestNodeId;
+    }
+
+    /**
+     * Returns the identities of at most maxCount nodes of the given topology satisfying the given filter,
+     * which are the closest to the given point at the given maximum distance, sorted by increasing distance
+     * (of two nodes at the same distance, the one with the smallest identity comes first).
+     * <p>
+     * The sectors are visited ring after ring as for nodeClosestTo, the search stopping as soon as the next
+     * ring is farther than the maxCount-th closest node found so far.
+     *
+     * @param topology       : nodes of the graph
+     * @param e              : east coordinate of the point (meters)
+     * @param n              : north coordinate of the point (meters)
+     * @param searchDistance : maximal distance (meters), possibly infinite
+     * @param maxCount       : maximal number of nodes
+     * @param filter         : predicate the identities of the nodes must satisfy
+     * @return the identities of the nodes
+     * @throws IllegalArgumentException if the distance or the number of nodes is negative
+     */
+    int[] nodesClosestTo(GraphTopology topology, double e, double n, double searchDistance,
+                         int maxCount, IntPredicate filter) {
+        Preconditions.checkArgument(searchDistance >= 0 && maxCount >= 0);
+        double x = sectorsX(e);
+        double y = sectorsY(n);
+        int centerX = centerSector(x);
+        int centerY = centerSector(y);
+
+        NearestNodes nearestNodes = new NearestNodes(maxCount, searchDistance * searchDistance);
+        for (int ring = 0; ring <= lastRing(centerX, centerY); ring++) {
+            if (ringSquaredDistance(x, y, centerX, centerY, ring) > nearestNodes.maxSquaredDistance()) break;
+            for (int i = 0; i < ringSectorsCount(ring); i++) {
+                int sectorIndex = ringSectorIndex(centerX, centerY, ring, i);
+                if (sectorIndex == -1 || sectorSquaredDistance(x, y, sectorIndex) > nearestNodes.maxSquaredDistance())
+                    continue;
+
+                int endNodeId = endNodeId(sectorIndex);
+                for (int nodeId = startNodeId(sectorIndex); nodeId < endNodeId; nodeId++) {
+                    double squaredDistance = Math2.squaredNorm(topology.nodeE(nodeId) - e, topology.nodeN(nodeId) - n);
+                    if (squaredDistance <= nearestNodes.maxSquaredDistance() && filter.test(nodeId))
+                        nearestNodes.offer(nodeId, squaredDistance);
+                }
+            }
+        }
+        return nearestNodes.sortedNodeIds();
+    }
+
+    /**
+     * Returns the identity of the edge of the given topology closest to the given point, at the given maximum
+     * distance, or -1 if there is none (of two edges at the same distance, the one with the smallest identity).
+     * The edges are seen as straight segments from their source node to their target node.
+     * <p>
+     * The edges are found from their source node, visiting the sectors ring after ring as for nodeClosestTo.
+     * The nodes of a sector are only searched if the longest edge leaving it can reach the closest edge found
+     * so far, so that one long edge only widens the search around its own sector.
+     *
+     * @param topology       : nodes and edges of the graph
+     * @param e              : east coordinate of the point (meters)
+     * @param n              : north coordinate of the point (meters)
+     * @param searchDistance : maximal distance (meters)
+     * @param segmentLengths : longest edges leaving the sectors (see segmentLengths)
+     * @return the identity of the closest edge, or -1
+     * @throws IllegalArgumentException if the distance is negative
+     */
+    int edgeClosestTo(GraphTopology topology, double e, double n, double searchDistance,
+                      SegmentLengths segmentLengths) {
+        Preconditions.checkArgument(searchDistance >= 0);
+        double x = sectorsX(e);
+        double y = sectorsY(n);
+        int centerX = centerSector(x);
+        int centerY = centerSector(y);
+
+        double closestSquaredDistance = searchDistance * searchDistance;
+        int closestEdgeId = -1;
+        for (int ring = 0; ring <= lastRing(centerX, centerY); ring++) {
+            double ringMaxDistance = Math.sqrt(closestSquaredDistance) + segmentLengths.maxLength();
+            if (ringSquaredDistance(x, y, centerX, centerY, ring) > ringMaxDistance * ringMaxDistance) break;
+            for (int i = 0; i < ringSectorsCount(ring); i++) {
+                int sectorIndex = ringSectorIndex(centerX, centerY, ring, i);
+                if (sectorIndex == -1) continue;
+                double sourceMaxDistance = Math.sqrt(closestSquaredDistance)
+                        + segmentLengths.sectorMaxLengths()[sectorIndex];
+                double sourceMaxSquaredDistance = sourceMaxDistance * sourceMaxDistance;
+                if (sectorSquaredDistance(x, y, sectorIndex) > sourceMaxSquaredDistance) continue;
+
+                int endNodeId = endNodeId(sectorIndex);
+                for (int nodeId = startNodeId(sectorIndex); nodeId < endNodeId; nodeId++) {
+                    double aE = topology.nodeE(nodeId);
+                    double aN = topology.nodeN(nodeId);
+                    if (Math2.squaredNorm(aE - e, aN - n) > sourceMaxSquaredDistance) continue;
+
+                    for (int j = 0; j < topology.nodeOutDegree(nodeId); j++) {
+                        int edgeId = topology.nodeOutEdgeId(nodeId, j);
+                        int targetNodeId = topology.edgeTargetNodeId(edgeId);
+                        double abE = topology.nodeE(targetNodeId) - aE;
+                        double abN = topology.nodeN(targetNodeId) - aN;
+                        // proportion of the segment at which the point is projected, clamped to the segment
+                        double squaredLength = Math2.squaredNorm(abE, abN);
+                        double t = squaredLength == 0 ? 0 :
+                                Math2.clamp(0, Math2.dotProduct(e - aE, n - aN, abE, abN) / squaredLength, 1);
+                        double squaredDistance = Math2.squaredNorm(aE + t * abE - e, aN + t * abN - n);
+                        if (squaredDistance < closestSquaredDistance
+                                || (squaredDistance == closestSquaredDistance && (closestEdgeId == -1 || edgeId < closestEdgeId))) {
+                            closestSquaredDistance = squaredDistance;
+                            closestEdgeId = edgeId;
+                        }
+                    }
+                }
+            }
+        }
+        return closestEdgeId;
+    }
+
+    /**
+     * Returns, for every sector, the largest straight-line distance between the two nodes of an edge
+     * leaving one of its nodes, used by edgeClosestTo
+     *
+     * @param topology : nodes and edges of the graph
+     * @return the longest edges leaving the sectors
+     */
+    SegmentLengths segmentLengths(GraphTopology topology) {
+        double[] sectorMaxLengths = new double[SUBDIVISIONS_PER_SIDE * SUBDIVISIONS_PER_SIDE];
+        double maxLength = 0;
+        for (int sectorIndex = 0; sectorIndex < sectorMaxLengths.length; sectorIndex++) {
+            int endNodeId = endNodeId(sectorIndex);
+            for (int nodeId = startNodeId(sectorIndex); nodeId < endNodeId; nodeId++) {
+                for (int i = 0; i < topology.nodeOutDegree(nodeId); i++) {
+                    int toNodeId = topology.edgeTargetNodeId(topology.nodeOutEdgeId(nodeId, i));
+                    sectorMaxLengths[sectorIndex] = Math.max(sectorMaxLengths[sectorIndex], Math2.norm(
+                            topology.nodeE(toNodeId) - topology.nodeE(nodeId),
+                            topology.nodeN(toNodeId) - topology.nodeN(nodeId)));
+                }
+            }
+            maxLength = Math.max(maxLength, sectorMaxLengths[sectorIndex]);
+        }
+        return new SegmentLengths(sectorMaxLengths, maxLength);
+    }
+
+    // Coordinates in sectors (the sector of index (x, y) covers [x, x + 1[ × [y, y + 1[)
+    private static double sectorsX(double e) {
+        return (e - SwissBounds.MIN_E) / SECTOR_WIDTH;
+    }
+
+    private static double sectorsY(double n) {
+        return (n - SwissBounds.MIN_N) / SECTOR_HEIGHT;
+    }
+
+    private static int centerSector(double coordinate) {
+        return Math2.clamp(0, (int) Math.floor(coordinate), SUBDIVISIONS_PER_SIDE - 1);
+    }
+
+    // Ring of the sectors at the given Chebyshev distance from the center sector; the last one contains
+    // the farthest sectors from the center
+    private static int lastRing(int centerX, int centerY) {
+        return Math.max(Math.max(centerX, SUBDIVISIONS_PER_SIDE - 1 - centerX),
+                Math.max(centerY, SUBDIVISIONS_PER_SIDE - 1 - centerY));
+    }
+
+    private static int ringSectorsCount(int ring) {
+        return ring == 0 ? 1 : 8 * ring;
+    }
+
+    // Every sector of the ring is outside the square made of the previous rings, which contains the point
+    private static double ringSquaredDistance(double x, double y, int centerX, int centerY, int ring) {
+        double ringDistance = Math.max(0, Math.min(
+                Math.min(x - (centerX - ring + 1), centerX + ring - x) * SECTOR_WIDTH,
+                Math.min(y - (centerY - ring + 1), centerY + ring - y) * SECTOR_HEIGHT));
+        return ringDistance * ringDistance;
+    }
+
+    // Index of the i-th sector of the ring, going around it side after side from its bottom-left corner,
+    // or -1 if this sector is outside the Swiss bounds
+    private static int ringSectorIndex(int centerX, int centerY, int ring, int i) {
+        int sideLength = Math.max(1, 2 * ring);
+        int side = i / sideLength;
+        int offset = i % sideLength;
+        int sectorX = centerX - ring + switch (side) {
+            case 0 -> offset;
+            case 1 -> 2 * ring;
+            case 2 -> 2 * ring - offset;
+            default -> 0;
+        };
+        int sectorY = centerY - ring + switch (side) {
+            case 0 -> 0;
+            case 1 -> offset;
+            case 2 -> 2 * ring;
+            default -> 2 * ring - offset;
+        };
+        if (sectorX < 0 || sectorX >= SUBDIVISIONS_PER_SIDE || sectorY < 0 || sectorY >= SUBDIVISIONS_PER_SIDE)
+            return -1;
+        return SUBDIVISIONS_PER_SIDE * sectorY + sectorX;
+    }
+
+    private static double sectorSquaredDistance(double x, double y, int sectorIndex) {
+        int sectorX = sectorIndex % SUBDIVISIONS_PER_SIDE;
+        int sectorY = sectorIndex / SUBDIVISIONS_PER_SIDE;
+        double dx = Math.max(0, Math.max(sectorX - x, x - (sectorX + 1))) * SECTOR_WIDTH;
+        double dy = Math.max(0, Math.max(sectorY - y, y - (sectorY + 1))) * SECTOR_HEIGHT;
+        return Math2.squaredNorm(dx, dy);
+    }
+
+    private int startNodeId(int sectorIndex) {
+        return buffer.getInt(NUMBER_OF_BYTES_PER_SECTOR * sectorIndex + OFFSET_NODE_ID);
+    }
+
+    private int endNodeId(int sectorIndex) {
+        return startNodeId(sectorIndex)
+                + Short.toUnsignedInt(buffer.getShort(NUMBER_OF_BYTES_PER_SECTOR * sectorIndex + OFFSET_NUMBER_OF_NODES));
+    }
+
+    /**
+     * Nodes closest to a point found so far, at most maxCount of them, kept in a binary max-heap ordered by
+     * distance then identity, so that the farthest one is replaced in logarithmic time
+     */
+    private static final class NearestNodes {
+        private static final int INITIAL_CAPACITY = 16;
+        private final int maxCount;
+        private final double searchSquaredDistance;
+        private int[] nodeIds;
+        private double[] squaredDistances;
+        private int size;
+
+        private NearestNodes(int maxCount, double searchSquaredDistance) {
+            this.maxCount = maxCount;
+            this.searchSquaredDistance = searchSquaredDistance;
+            this.nodeIds = new int[Math.min(maxCount, INITIAL_CAPACITY)];
+            this.squaredDistances = new double[nodeIds.length];
+        }
+
+        // Squared distance of the farthest node which can still be added
+        private double maxSquaredDistance() {
+            return size == maxCount ? (maxCount == 0 ? -1 : squaredDistances[0]) : searchSquaredDistance;
+        }
+
+        private void offer(int nodeId, double squaredDistance) {
+            if (size < maxCount) {
+                if (size == nodeIds.length) {
+                    int capacity = (int) Math.min(maxCount, 2L * size);
+                    nodeIds = Arrays.copyOf(nodeIds, capacity);
+                    squaredDistances = Arrays.copyOf(squaredDistances, capacity);
+                }
+                siftUp(size++, nodeId, squaredDistance);
+            } else if (isFarther(nodeIds[0], squaredDistances[0], nodeId, squaredDistance)) {
+                siftDown(0, nodeId, squaredDistance);
+            }
+        }
+
+        // Removes the nodes from the heap, from the farthest to the closest
+        private int[] sortedNodeIds() {
+            int[] sortedNodeIds = new int[size];
+            while (size > 0) {
+                sortedNodeIds[size - 1] = nodeIds[0];
+                size -= 1;
+                if (size > 0) siftDown(0, nodeIds[size], squaredDistances[size]);
+            }
+            return sortedNodeIds;
+        }
+
+        private static boolean isFarther(int nodeId1, double squaredDistance1, int nodeId2, double squaredDistance2) {
+            return squaredDistance1 > squaredDistance2 || (squaredDistance1 == squaredDistance2 && nodeId1 > nodeId2);
+        }
+
+        private void siftUp(int index, int nodeId, double squaredDistance) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!isFarther(nodeId, squaredDistance, nodeIds[parent], squaredDistances[parent])) break;
+                nodeIds[index] = nodeIds[parent];
+                squaredDistances[index] = squaredDistances[parent];
+                index = parent;
+            }
+            nodeIds[index] = nodeId;
+            squaredDistances[index] = squaredDistance;
+        }
+
+        private void siftDown(int index, int nodeId, double squaredDistance) {
+            while (2 * index + 1 < size) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && isFarther(nodeIds[child + 1], squaredDistances[child + 1],
+                        nodeIds[child], squaredDistances[child])) child += 1;
+                if (!isFarther(nodeIds[child], squaredDistances[child], nodeId, squaredDistance)) break;
+                nodeIds[index] = nodeIds[child];
+                squaredDistances[index] = squaredDistances[child];
+                index = child;
+            }
+            nodeIds[index] = nodeId;
+            squaredDistances[index] = squaredDistance;
+        }
+    }
+
+    /**
+     * Longest edges leaving the sectors, seen as straight segments between their nodes
+     *
+     * @param sectorMaxLengths : largest length of an edge leaving a node of each sector (meters), by sector index
+     * @param maxLength        : largest length of an edge of the graph (meters)
+     */
+    record SegmentLengths(double[] sectorMaxLengths, double maxLength) {
+    }
+
     /**
      * This nested record represents a sector
      *
@@ -0,0 +1,101 @@
+package ch.epfl.javelo.data;
+
+
+/**
+ * GraphTopology
+ * Nodes and edges of the graph, without their profiles and attributes, i.e. everything the route computations
+ * read for every node they explore. It is implemented either directly over the buffers of the binary files
+ * (BufferGraphTopology) or over arrays copied from them (ArrayGraphTopology).
+ *
+ * @author David Farah (341017)
+ * @author Wesley Nana Davies(344592)
+ */
+interface GraphTopology {
+
+    /**
+     * Returns the total number of nodes
+     *
+     * @return the number of nodes
+     */
+    int nodeCount();
+
+    /**
+     * Returns the east coordinate of the node
+     *
+     * @param nodeId : ID of the node
+     * @return the east coordinate
+     */
+    double nodeE(int nodeId);
+
+    /**
+     * Returns the north coordinate of the node
+     *
+     * @param nodeId : ID of the node
+     * @return the north coordinate
+     */
+    double nodeN(int nodeId);
+
+    /**
+     * Returns the number of edges going out from the given node
+     *
+     * @param nodeId : ID of the node
+     * @return the number of edges
+     */
+    int nodeOutDegree(int nodeId);
+
+    /**
+     * Returns the identity of the edgeIndex-th edge going out from the given node
+     *
+     * @param nodeId    : ID of the node
+     * @param edgeIndex : index of the edge for the given node
+     * @return the identity of the edge
+     */
+    int nodeOutEdgeId(int nodeId, int edgeIndex);
+
+    /**
+     * Returns the total number of edges
+     *
+     * @return the number of edges
+     */
+    int edgeCount();
+
+    /**
+     * Returns the identity of the destination node of the given edge
+     *
+     * @param edgeId : ID of the edge
+     * @return the ID of the node
+     */
+    int edgeTargetNodeId(int edgeId);
+
+    /**
+     * Returns true iff the edge goes in the opposite direction to the OSM road it belongs to
+     *
+     * @param edgeId : ID of the edge
+     * @return <code>true</code> or <code>false</code>
+     */
+    boolean edgeIsInverted(int edgeId);
+
+    /**
+     * Returns the length, in meters, of the given edge
+     *
+     * @param edgeId : ID of the edge
+     * @return the length of the edge
+     */
+    double edgeLength(int edgeId);
+
+    /**
+     * Returns the positive elevation, in meters, of the given edge
+     *
+     * @param edgeId : ID of the edge
+     * @return the positive elevation
+     */
+    double edgeElevationGain(int edgeId);
+
+    /**
+     * Returns the index of the AttributeSet of the given edge
+     *
+     * @param edgeId : ID of the edge
+     * @return the index
+     */
+    int edgeAttributesIndex(int edgeId);
+}
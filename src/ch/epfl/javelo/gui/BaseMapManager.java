@@ -8,9 +8,13 @@ import javafx.beans.property.SimpleObjectProperty;
 import javafx.geometry.Point2D;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
 import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
 
-import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -24,12 +28,15 @@ public final class BaseMapManager {
     private static final int ZOOM_LEVEL_MIN = 8;
     private static final int ZOOM_LEVEL_MAX = 19;
     private static final int SCROLL_DELAY = 200;
+    private static final Color PLACEHOLDER_COLOR = Color.gray(0.9);
     private final WayPointsManager wayPointsManager;
     private final TileManager tileManager;
     private final ObjectProperty<MapViewParameters> mapViewParametersP;
     private final ObjectProperty<Point2D> coordinatesMouseWhenPressed;
     private final Canvas canvas;
     private final Pane pane;
+    // tiles being loaded whose loading is already observed, only accessed by the JavaFX application thread
+    private final Set<TileManager.TileId> observedTiles;
     private boolean redrawNeeded;
 
     /**
@@ -48,6 +55,7 @@ public final class BaseMapManager {
         this.coordinatesMouseWhenPressed = new SimpleObjectProperty<>();
         this.canvas = new Canvas();
         this.pane = new Pane(canvas);
+        this.observedTiles = new HashSet<>();
 
         addPaneListeners();
         addCanvasProperties();
@@ -142,7 +150,8 @@ public final class BaseMapManager {
 
 
     /**
-     * This method redraws the map if and only if redrawNeeded is true
+     * This method redraws the map if and only if redrawNeeded is true.
+     * The tiles which are not loaded yet are replaced by placeholders, and the map is redrawn once they are loaded.
      */
     private void redrawIfNeeded() {
         if (redrawNeeded) {
@@ -160,18 +169,91 @@ public final class BaseMapManager {
             //Iterate and draw tiles in the canvas
             for (int i = 0; i <= xMax; i++) {
                 for (int j = 0; j <= yMax; j++) {
-                    try {
-                        gc.drawImage(tileManager.getTileImage(new TileManager.TileId(mapViewParameters.zoomLevel(),
-                                        i + tileX,
-                                        j + tileY)),
-                                (i + tileX) * SIZE_TILE - mapViewParameters.xUpperLeftMapView(),
-                                (j + tileY) * SIZE_TILE - mapViewParameters.yUpperLeftMapView());
-                    } catch (IOException e) {
-                        System.out.println(e.getMessage());
-                    }
+                    if (!TileManager.TileId.isValid(mapViewParameters.zoomLevel(), i + tileX, j + tileY)) continue;
+                    drawTile(gc, new TileManager.TileId(mapViewParameters.zoomLevel(), i + tileX, j + tileY),
+                            (i + tileX) * SIZE_TILE - mapViewParameters.xUpperLeftMapView(),
+                            (j + tileY) * SIZE_TILE - mapViewParameters.yUpperLeftMapView());
                 }
 
             }
+
+            prefetchTiles(mapViewParameters, tileX, tileY, xMax, yMax);
+        }
+    }
+
+
+    /**
+     * This method draws the given tile if it is loaded, or a placeholder otherwise
+     *
+     * @param gc    : graphics context of the canvas
+     * @param tile  : the tile to draw
+     * @param drawX : x coordinate of the top left corner of the tile in the canvas
+     * @param drawY : y coordinate of the top left corner of the tile in the canvas
+     */
+    private void drawTile(GraphicsContext gc, TileManager.TileId tile, double drawX, double drawY) {
+        CompletableFuture<Image> tileImage = tileManager.tileImageAsync(tile);
+        if (tileImage.isDone() && !tileImage.isCompletedExceptionally()) {
+            gc.drawImage(tileImage.join(), drawX, drawY);
+            return;
+        }
+
+        // the quarter of the tile of the previous zoom level containing it is shown instead, if it is loaded
+        Image parentImage = tile.zoomLevel() == 0 ? null : tileManager.cachedTileImage(
+                new TileManager.TileId(tile.zoomLevel() - 1, tile.xIndex() / 2, tile.yIndex() / 2));
+        if (parentImage != null) {
+            double halfSize = SIZE_TILE / 2d;
+            gc.drawImage(parentImage, tile.xIndex() % 2 * halfSize, tile.yIndex() % 2 * halfSize, halfSize, halfSize,
+                    drawX, drawY, SIZE_TILE, SIZE_TILE);
+        } else {
+            gc.setFill(PLACEHOLDER_COLOR);
+            gc.fillRect(drawX, drawY, SIZE_TILE, SIZE_TILE);
+        }
+
+        // the map is redrawn once the tile is loaded, the loading being observed only once whatever the redraws
+        if (!observedTiles.add(tile)) return;
+        tileImage.whenCompleteAsync((image, e) -> {
+            observedTiles.remove(tile);
+            if (e == null) redrawOnNextPulse();
+            else System.out.println(e.getMessage());
+        }, Platform::runLater);
+    }
+
+
+    /**
+     * This method starts downloading the tiles which are likely to be shown next: the ring of tiles just outside
+     * the view, then the tiles of the next zoom level around the center of the view. They are only downloaded
+     * in the storage cache, so that they do not evict the visible tiles from the memory cache.
+     *
+     * @param mapViewParameters : parameters of the view
+     * @param tileX             : x index of the tile at the top left corner of the view
+     * @param tileY             : y index of the tile at the top left corner of the view
+     * @param xMax              : index, relative to tileX, of the last column of tiles of the view
+     * @param yMax              : index, relative to tileY, of the last row of tiles of the view
+     */
+    private void prefetchTiles(MapViewParameters mapViewParameters, int tileX, int tileY, int xMax, int yMax) {
+        int zoomLevel = mapViewParameters.zoomLevel();
+        for (int i = -1; i <= xMax + 1; i++) {
+            for (int j = -1; j <= yMax + 1; j++) {
+                boolean inRing = i == -1 || i == xMax + 1 || j == -1 || j == yMax + 1;
+                if (inRing && TileManager.TileId.isValid(zoomLevel, i + tileX, j + tileY))
+                    tileManager.prefetchTileFile(new TileManager.TileId(zoomLevel, i + tileX, j + tileY));
+            }
+        }
+
+        if (zoomLevel == ZOOM_LEVEL_MAX) return;
+
+        // at the next zoom level, the view centered on the same point covers the center half of the current view
+        double centerX = 2 * (mapViewParameters.xUpperLeftMapView() + canvas.getWidth() / 2);
+        double centerY = 2 * (mapViewParameters.yUpperLeftMapView() + canvas.getHeight() / 2);
+        int minX = (int) Math.floor((centerX - canvas.getWidth() / 2) / SIZE_TILE);
+        int maxX = (int) Math.floor((centerX + canvas.getWidth() / 2) / SIZE_TILE);
+        int minY = (int) Math.floor((centerY - canvas.getHeight() / 2) / SIZE_TILE);
+        int maxY = (int) Math.floor((centerY + canvas.getHeight() / 2) / SIZE_TILE);
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                if (TileManager.TileId.isValid(zoomLevel + 1, x, y))
+                    tileManager.prefetchTileFile(new TileManager.TileId(zoomLevel + 1, x, y));
+            }
         }
     }
 
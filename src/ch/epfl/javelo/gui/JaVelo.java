@@ -18,6 +18,7 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 
@@ -40,15 +41,26 @@ public final class JaVelo extends Application {
     @Override
     public void start(Stage primaryStage) throws Exception {
         //------Create JaVelo objects--------
-        Graph graph = Graph.loadFrom(Path.of("javelo-data"));
+        Path graphPath = Path.of("javelo-data");
+        Graph graph = Graph.loadFrom(graphPath, Graph.LoadMode.PRELOAD, Graph.Layout.ARRAYS);
         TileManager tileManager = new TileManager(Path.of("./osm-cache"), "tile.openstreetmap.org");
-        CostFunction cityBikeCF = new CityBikeCF(graph);
-
-        RouteComputer rc = new RouteComputer(graph, cityBikeCF);
-        RouteBean rb = new RouteBean(rc);
-
+        CostFunction cityBikeCF = CachedCostFunction.of(graph, new CityBikeCF(graph));
+
+        // using the contraction hierarchy if it has been built (see ContractionHierarchyBuilder),
+        // or else the landmark table (see LandmarkTableBuilder)
+        Path hierarchyPath = graphPath.resolve(ContractionHierarchy.FILE_NAME);
+        Path landmarksPath = graphPath.resolve(LandmarkTable.FILE_NAME);
+        RouteComputer rc;
+        if (Files.exists(hierarchyPath))
+            rc = new RouteComputer(graph, cityBikeCF, ContractionHierarchy.loadFrom(hierarchyPath, graph));
+        else if (Files.exists(landmarksPath))
+            rc = new RouteComputer(graph, cityBikeCF, LandmarkTable.loadFrom(landmarksPath, graph));
+        else
+            rc = new RouteComputer(graph, cityBikeCF);
         ErrorManager errorManager = new ErrorManager();
 
+        RouteBean rb = new RouteBean(rc, errorManager::displayError);
+
         AnnotatedMapManager annotatedMapManager =
                 new AnnotatedMapManager(graph, tileManager, rb, errorManager::displayError);
 
@@ -2,42 +2,75 @@ package ch.epfl.javelo.gui;
 
 import ch.epfl.javelo.LRUCache;
 import ch.epfl.javelo.routing.*;
+import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  * RouteBean class
  * This class contains information about a route (elevation profile, waypoints, highlighted position, etc)
+ * <p>
+ * The route and its profile are computed on a background thread (its segments in parallel), so that the JavaFX application thread
+ * is never blocked by the searches, and published on the JavaFX application thread once computed.
+ * A recomputation still running when the waypoints change again is cancelled, and its result is never published.
+ * A recomputation which fails publishes no route and signals an error.
  *
  * @author Wesley Nana Davies (344592)
  * @author David Farah (341017)
  */
 public final class RouteBean {
-    private final static int RECOMMENDED_STEP_LENGTH = 5, CACHE_CAPACITY = 10;
+    private final static int RECOMMENDED_STEP_LENGTH = 5;
+    // estimated memory used by an edge of a route (record, points and profile), and allowed for the cache
+    private final static long ESTIMATED_EDGE_BYTES = 128, CACHE_MAX_BYTES = 32L << 20;
     private final static float LOAD_FACTOR = 0.75f;
+    private final static String ROUTE_ERROR_MSG = "Erreur lors du calcul de l'itinéraire !";
     public static ObservableList<Waypoint> waypoints;
     private final RouteComputer routeComputer;
+    private final Consumer<String> signalError;
     private final ObjectProperty<Route> route;
     private final DoubleProperty highlightedPosition;
     private final ObjectProperty<ElevationProfile> elevationProfile;
-    private final Map<Integer, Route> hashRouteMap;
+    private final LRUCache<SegmentKey, Segment> segmentCache;
+    private final ObjectProperty<RecomputationMetrics> recomputationMetrics;
+    // thread on which the routes are computed, the only one accessing the cache of segments
+    private final ExecutorService routeExecutor;
+    private Future<?> pendingRecomputation;
+    private long recomputationCount;
+    // waypoints of the route currently published
+    private List<Waypoint> routeWaypoints;
 
     /**
      * Constructor
      *
      * @param routeComputer : routeComputer which computes best routes between waypoints
+     * @param signalError   : object to report errors (used to display error messages to the user),
+     *                      called on the JavaFX application thread
      */
-    public RouteBean(RouteComputer routeComputer) {
+    public RouteBean(RouteComputer routeComputer, Consumer<String> signalError) {
         this.routeComputer = routeComputer;
+        this.signalError = signalError;
         waypoints = FXCollections.observableArrayList();
         route = new SimpleObjectProperty<>();
         elevationProfile = new SimpleObjectProperty<>();
         highlightedPosition = new SimpleDoubleProperty(Double.NaN);
-        hashRouteMap = new LRUCache<>(CACHE_CAPACITY, LOAD_FACTOR);
+        segmentCache = new LRUCache<>(CACHE_MAX_BYTES, LOAD_FACTOR, Segment::estimatedBytes);
+        recomputationMetrics = new SimpleObjectProperty<>();
+        routeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "route-computation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        routeWaypoints = List.of();
 
         // this listener calls recalculates route and profile
         // each time a change is made in the waypoints list
@@ -49,57 +82,181 @@ public final class RouteBean {
 
 
     /**
-     * This method recalculates the route and the profile
+     * This method recalculates the route and the profile of the current waypoints on the background thread,
+     * after cancelling the recalculation still running, if any
      */
     private void recalculateRouteAndProfile() {
+        long requestNanos = System.nanoTime();
+        long recomputation = ++recomputationCount;
+        if (pendingRecomputation != null) pendingRecomputation.cancel(true);
+        List<Waypoint> requestWaypoints = List.copyOf(waypoints);
 
         // if there is only one waypoint, setting properties to null and doing no calculations
-        if (waypoints.size() == 1) {
-            route.setValue(null);
-            elevationProfile.setValue(null);
+        if (requestWaypoints.size() == 1) {
+            pendingRecomputation = null;
+            publish(recomputation, requestWaypoints, null, requestNanos);
             return;
         }
 
-        List<Route> singleRoutes = new ArrayList<>();
-        Iterator<Waypoint> it = waypoints.iterator();
-        Waypoint oldWaypoint = it.next();
-        Waypoint currentWaypoint;
-
-        // iterating through all waypoints
-        while (it.hasNext()) {
-            currentWaypoint = it.next();
-
-            // using the method equals which we have overridden in Waypoint record
-            if (!currentWaypoint.equals(oldWaypoint)) {
-
-                // using the hash method from Objects to identify effectively retrieve routes in the hashRouteMap.
-                int hashCode = Objects.hash(oldWaypoint.nodeID(), currentWaypoint.nodeID());
+        // the task catches its exceptions itself, so that they are reported instead of being kept in the future
+        FutureTask<Void> recomputationTask = new FutureTask<>(() -> {
+            try {
+                ComputedRoute computedRoute = computeRouteAndProfile(requestWaypoints);
+                if (computedRoute != null) {
+                    Platform.runLater(() -> publish(recomputation, requestWaypoints, computedRoute, requestNanos));
+                }
+            } catch (RuntimeException e) {
+                Platform.runLater(() -> {
+                    if (recomputation != recomputationCount) return;
+                    publish(recomputation, requestWaypoints, null, requestNanos);
+                    signalError.accept(ROUTE_ERROR_MSG);
+                });
+            }
+        }, null);
+        pendingRecomputation = recomputationTask;
+        routeExecutor.execute(recomputationTask);
+    }
 
-                Waypoint finalOldWaypoint = oldWaypoint;
-                Waypoint finalCurrentWaypoint = currentWaypoint;
 
-                singleRoutes.add(hashRouteMap.computeIfAbsent(hashCode, hashCodeKey ->
-                        routeComputer.bestRouteBetween(finalOldWaypoint.nodeID(), finalCurrentWaypoint.nodeID())));
+    /**
+     * This method computes the route and the profile going through the given waypoints, reusing the segments
+     * of the cache (on the background thread). The segments which are not in the cache are independent, so they
+     * are computed in parallel in the common fork-join pool, each search using its own search context of the
+     * route computer over the shared graph.
+     *
+     * @param waypoints : the waypoints of the route
+     * @return the route and its profile (both null if there is no route), or null if the computation has been
+     * cancelled
+     */
+    private ComputedRoute computeRouteAndProfile(List<Waypoint> waypoints) {
+        // keys of the non-empty segments, in the order of the waypoints
+        List<SegmentKey> keys = new ArrayList<>();
+        for (int i = 1; i < waypoints.size(); i += 1) {
+            if (!isEmptySegment(waypoints.get(i - 1), waypoints.get(i)))
+                keys.add(new SegmentKey(waypoints.get(i - 1), waypoints.get(i)));
+        }
 
+        // only the segments between waypoints which have changed are computed again
+        List<SegmentKey> missingKeys = keys.stream().filter(key -> !segmentCache.containsKey(key)).distinct().toList();
+        Segment[] missingSegments = new Segment[missingKeys.size()];
+        RuntimeException[] segmentErrors = new RuntimeException[missingKeys.size()];
+        Thread recomputationThread = Thread.currentThread();
+        IntStream.range(0, missingKeys.size()).parallel().forEach(i -> {
+            // the searches themselves cannot be interrupted, the cancellation is checked between them
+            if (recomputationThread.isInterrupted()) return;
+            try {
+                missingSegments[i] = computeSegment(missingKeys.get(i).from(), missingKeys.get(i).to());
+            } catch (RuntimeException e) {
+                // the segment stays null and its error is reported, the other ones are still computed
+                segmentErrors[i] = e;
             }
+        });
+        if (recomputationThread.isInterrupted()) return null;
 
-            oldWaypoint = currentWaypoint;
+        // the cache is only accessed by this thread, once all the segments have been computed
+        List<RuntimeException> failures = new ArrayList<>();
+        Map<SegmentKey, Segment> computedSegments = new HashMap<>();
+        for (int i = 0; i < missingSegments.length; i += 1) {
+            if (segmentErrors[i] != null) {
+                failures.add(segmentErrors[i]);
+            } else {
+                segmentCache.put(missingKeys.get(i), missingSegments[i]);
+                computedSegments.put(missingKeys.get(i), missingSegments[i]);
+            }
         }
 
-        // if all routes exist, we can store a new route, or we store null otherwise.
-        if (!singleRoutes.contains(null)) {
-            route.setValue(new MultiRoute(singleRoutes));
-            elevationProfile.setValue(ElevationProfileComputer.elevationProfile(route.get(),
-                    RECOMMENDED_STEP_LENGTH));
-        }
-        else {
-            route.setValue(null);
-            elevationProfile.setValue(null);
+        List<Route> singleRoutes = new ArrayList<>();
+        List<Double> segmentLengths = new ArrayList<>();
+        List<float[]> segmentSamples = new ArrayList<>();
+        boolean routeExists = failures.isEmpty();
+        for (SegmentKey key : keys) {
+            // the segments just computed may already have been evicted from the cache
+            Segment segment = computedSegments.containsKey(key) ? computedSegments.get(key) : segmentCache.get(key);
+            if (segment == null || segment.route() == null) {
+                routeExists = false;
+                continue;
+            }
+            singleRoutes.add(segment.route());
+            segmentLengths.add(segment.route().length());
+            segmentSamples.add(segment.elevationSamples());
         }
 
+        if (!routeExists || singleRoutes.isEmpty())
+            return new ComputedRoute(null, null, missingKeys.size(), failures);
+        return new ComputedRoute(new MultiRoute(singleRoutes),
+                ElevationProfileComputer.elevationProfile(segmentLengths, segmentSamples, RECOMMENDED_STEP_LENGTH),
+                missingKeys.size(), failures);
     }
 
 
+    /**
+     * This method publishes the given route and profile (on the JavaFX application thread), and signals
+     * an error if the computation of some segments has failed, unless the waypoints have changed again
+     * since they have been requested
+     *
+     * @param recomputation : number of the recomputation
+     * @param waypoints     : the waypoints of the route
+     * @param computedRoute : the route and its profile, or null if there are not enough waypoints
+     *                      or if the recomputation has failed
+     * @param requestNanos  : time at which the recomputation has been requested (System.nanoTime)
+     */
+    private void publish(long recomputation, List<Waypoint> waypoints, ComputedRoute computedRoute,
+                         long requestNanos) {
+        if (recomputation != recomputationCount) return;
+
+        pendingRecomputation = null;
+        routeWaypoints = waypoints;
+        route.setValue(computedRoute == null ? null : computedRoute.route());
+        elevationProfile.setValue(computedRoute == null ? null : computedRoute.elevationProfile());
+        recomputationMetrics.setValue(new RecomputationMetrics(waypoints.size(),
+                computedRoute == null ? 0 : computedRoute.computedSegments(),
+                computedRoute == null ? 0 : computedRoute.segmentErrors().size(), System.nanoTime() - requestNanos));
+        if (computedRoute != null && !computedRoute.segmentErrors().isEmpty()) signalError.accept(ROUTE_ERROR_MSG);
+    }
+
+
+    /**
+     * This method computes the segment between the given waypoints: its best route and the samples of its profile
+     *
+     * @param from : waypoint at the start of the segment
+     * @param to   : waypoint at the end of the segment
+     * @return the segment, whose route is null if there is none
+     */
+    private Segment computeSegment(Waypoint from, Waypoint to) {
+        Route segmentRoute = bestRouteBetween(from, to);
+        return new Segment(segmentRoute, segmentRoute == null ? null :
+                ElevationProfileComputer.elevationSamples(segmentRoute, RECOMMENDED_STEP_LENGTH));
+    }
+
+
+    /**
+     * Returns true iff the segment between the given waypoints is empty, i.e. if their positions on edges are
+     * at the same point of the graph (even on different edges, e.g. at the node they share) or, when one of them
+     * is only associated to a node, if they are at the same node
+     *
+     * @param from : waypoint at the start of the segment
+     * @param to   : waypoint at the end of the segment
+     * @return true iff the segment is empty
+     */
+    private boolean isEmptySegment(Waypoint from, Waypoint to) {
+        return from.edgePosition() != null && to.edgePosition() != null ?
+                routeComputer.areAtSamePoint(from.edgePosition(), to.edgePosition()) : from.nodeID() == to.nodeID();
+    }
+
+    /**
+     * This method computes the best route between the given waypoints, from and to their positions on edges
+     * if both have one, or between their nodes otherwise
+     *
+     * @param from : waypoint at the start of the route
+     * @param to   : waypoint at the end of the route
+     * @return the route, or null if there is none
+     */
+    private Route bestRouteBetween(Waypoint from, Waypoint to) {
+        return from.edgePosition() != null && to.edgePosition() != null ?
+                routeComputer.bestRouteBetween(from.edgePosition(), to.edgePosition()) :
+                routeComputer.bestRouteBetween(from.nodeID(), to.nodeID());
+    }
+
     /**
      * Returns the index of the segment containing it, ignoring empty segments
      *
@@ -108,10 +265,9 @@ public final class RouteBean {
      */
     public int indexOfNonEmptySegmentAt(double position) {
         int index = route.get().indexOfSegmentAt(position);
+        // the waypoints of the published route, which may have changed since
         for (int i = 0; i <= index; i += 1) {
-            int n1 = waypoints.get(i).nodeID();
-            int n2 = waypoints.get(i + 1).nodeID();
-            if (n1 == n2) index += 1;
+            if (isEmptySegment(routeWaypoints.get(i), routeWaypoints.get(i + 1))) index += 1;
         }
         return index;
     }
@@ -173,4 +329,70 @@ public final class RouteBean {
         return elevationProfile;
     }
 
+    /**
+     * This method returns the property containing the metrics of the last recomputation of the route
+     * which has been published
+     *
+     * @return a ReadOnlyObjectProperty containing the metrics, null before the first recomputation
+     */
+    public ReadOnlyObjectProperty<RecomputationMetrics> getRecomputationMetricsProperty() {
+        return recomputationMetrics;
+    }
+
+
+    /**
+     * Metrics of a recomputation of the route
+     *
+     * @param waypointCount    : number of waypoints of the route
+     * @param computedSegments : number of segments computed, i.e. which were not in the cache
+     * @param failedSegments   : number of segments whose computation has failed (with an exception),
+     *                         in which case there is no route
+     * @param latencyNanos     : time between the change of the waypoints and the publication of the route
+     *                         (nanoseconds)
+     */
+    public record RecomputationMetrics(int waypointCount, int computedSegments, int failedSegments,
+                                       long latencyNanos) {
+    }
+
+    /**
+     * Route and profile computed on the background thread
+     *
+     * @param route            : the route, or null if there is none
+     * @param elevationProfile : the profile of the route, or null if there is no route
+     * @param computedSegments : number of segments computed, i.e. which were not in the cache
+     * @param segmentErrors    : errors of the segments whose computation has failed, in which case there is
+     *                         no route
+     */
+    private record ComputedRoute(Route route, ElevationProfile elevationProfile, int computedSegments,
+                                 List<RuntimeException> segmentErrors) {
+    }
+
+    /**
+     * Key of the cache of segments: the waypoints at both ends of a segment, compared like in Waypoint.equals,
+     * i.e. by their node and their position on an edge
+     *
+     * @param from : waypoint at the start of the segment
+     * @param to   : waypoint at the end of the segment
+     */
+    private record SegmentKey(Waypoint from, Waypoint to) {
+    }
+
+    /**
+     * Segment of the route between two waypoints
+     *
+     * @param route            : best route of the segment, or null if there is none
+     * @param elevationSamples : samples of the profile of the route (see ElevationProfileComputer.elevationSamples),
+     *                         or null if there is no route
+     */
+    private record Segment(Route route, float[] elevationSamples) {
+        /**
+         * Returns the estimated memory used by the segment, its weight in the cache
+         *
+         * @return the estimated number of bytes
+         */
+        private long estimatedBytes() {
+            return route == null ? ESTIMATED_EDGE_BYTES :
+                    route.edges().size() * ESTIMATED_EDGE_BYTES + (long) elevationSamples.length * Float.BYTES;
+        }
+    }
 }
@@ -10,6 +10,7 @@ import javafx.scene.shape.Circle;
 import javafx.scene.shape.Polyline;
 
 import javax.naming.Binding;
+import java.util.List;
 
 import static java.lang.Float.NaN;
 
@@ -99,11 +100,16 @@ public final class RouteManager {
         if (routeBean.getRouteProperty().get() != null) {
             polyline.setVisible(true);
 
-            for (PointCh routePoint : routeBean.getRouteProperty().get().points()) {
-                PointWebMercator routePointMercator = PointWebMercator.ofPointCh(routePoint);
-                polyline.getPoints().addAll(routePointMercator.xAtZoomLevel(mapViewParametersP.get().zoomLevel()),
-                        routePointMercator.yAtZoomLevel(mapViewParametersP.get().zoomLevel()));
+            // the points are added at once, so that the polyline is only notified of a single change
+            List<PointCh> routePoints = routeBean.getRouteProperty().get().points();
+            int zoomLevel = mapViewParametersP.get().zoomLevel();
+            Double[] polylinePoints = new Double[2 * routePoints.size()];
+            for (int i = 0; i < routePoints.size(); i++) {
+                PointWebMercator routePointMercator = PointWebMercator.ofPointCh(routePoints.get(i));
+                polylinePoints[2 * i] = routePointMercator.xAtZoomLevel(zoomLevel);
+                polylinePoints[2 * i + 1] = routePointMercator.yAtZoomLevel(zoomLevel);
             }
+            polyline.getPoints().addAll(polylinePoints);
 
             polyline.setLayoutX(-mapViewParametersP.get().xUpperLeftMapView());
             polyline.setLayoutY(-mapViewParametersP.get().yUpperLeftMapView());
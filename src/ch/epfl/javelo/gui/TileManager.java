@@ -10,11 +10,19 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.LinkedHashMap;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
 
 /**
  * Tile Manager class
  * This class manages the access to the tiles constituting parts of Switzerland
+ * <p>
+ * Tiles can also be obtained asynchronously: they are then read and downloaded by a bounded pool of
+ * background threads, a tile requested again while it is being loaded sharing the same loading.
+ * Tiles can also be prefetched by another background thread: they are then only downloaded in the storage cache,
+ * so that they never evict tiles from the memory cache.
  *
  * @author Wesley Nana Davies (344592)
  * @author David Farah (341017)
@@ -23,9 +31,18 @@ public final class TileManager {
 
     private static final int CACHE_SIZE = 100;
     private static final float LOAD_FACTOR = .75f;
+    private static final int LOADING_THREADS = 4;
+    // prefetching is skipped when that many tiles are already being prefetched
+    private static final int MAX_PENDING_TILES_FOR_PREFETCH = 32;
     private final Path cachePath;
     private final String hostName;
-    private final LinkedHashMap<TileId, Image> memoryCache;
+    // accessed by the loading threads too, always while holding its lock
+    private final LRUCache<TileId, Image> memoryCache;
+    private final ExecutorService loadingExecutor;
+    // prefetching has its own thread, so that the tiles it downloads are never queued before requested tiles
+    private final ExecutorService prefetchExecutor;
+    private final Map<TileId, CompletableFuture<Image>> pendingTiles;
+    private final Set<TileId> pendingDownloads;
 
     /**
      * Constructor
@@ -37,6 +54,19 @@ public final class TileManager {
         this.cachePath = cachePath;
         this.hostName = hostName;
         memoryCache = new LRUCache<>(CACHE_SIZE, LOAD_FACTOR);
+        loadingExecutor = Executors.newFixedThreadPool(LOADING_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "tile-loading");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prefetchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tile-prefetching");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        pendingTiles = new ConcurrentHashMap<>();
+        pendingDownloads = ConcurrentHashMap.newKeySet();
     }
 
     /**
@@ -49,28 +79,111 @@ public final class TileManager {
     public Image getTileImage(TileId tile) throws IOException {
         String fileName = tile.getFileNameLocal();
         Path filePath = cachePath.resolve(fileName).normalize();
+        Image cachedImage = cachedTileImage(tile);
 
-        if (memoryCache.containsKey(tile)) {
-            return memoryCache.get(tile);
+        if (cachedImage != null) {
+            return cachedImage;
 
         } else if (Files.exists(filePath)) {
             return getImageFromFile(filePath, tile);
 
         } else {
-            URL u = tile.getURL(hostName);
-            URLConnection c = u.openConnection();
-            c.setRequestProperty("User-Agent", "JaVelo");
-            Files.createDirectories(filePath.getParent());
-
-            try (InputStream i = c.getInputStream();
-                 FileOutputStream o = new FileOutputStream(filePath.toFile())) {
-                i.transferTo(o);
+            downloadTile(tile, filePath);
+            return getImageFromFile(filePath, tile);
+        }
+    }
+
+    /**
+     * Returns the image corresponding to a certain TileId asynchronously: it is loaded like in getTileImage by
+     * the loading threads, unless it is in the memory cache. The loading of a tile which is already being loaded
+     * is not started again, its future is returned instead.
+     *
+     * @param tile id of the tile
+     * @return a future completed with the image, or exceptionally in case of an input/output error
+     */
+    public CompletableFuture<Image> tileImageAsync(TileId tile) {
+        Image cachedImage = cachedTileImage(tile);
+        if (cachedImage != null) return CompletableFuture.completedFuture(cachedImage);
+
+        CompletableFuture<Image> newTile = new CompletableFuture<>();
+        CompletableFuture<Image> pendingTile = pendingTiles.putIfAbsent(tile, newTile);
+        if (pendingTile != null) return pendingTile;
+
+        loadingExecutor.execute(() -> {
+            try {
+                newTile.complete(getTileImage(tile));
+            } catch (IOException | RuntimeException e) {
+                newTile.completeExceptionally(e);
+            } finally {
+                pendingTiles.remove(tile);
             }
+        });
+        return newTile;
+    }
 
-            return getImageFromFile(filePath, tile);
+    /**
+     * Starts downloading the image corresponding to a certain TileId in the storage cache, if it is in none of
+     * the caches yet and if not too many tiles are already being prefetched. The image is not read, so that the
+     * memory cache only contains the tiles which have been requested. The tiles are downloaded one at a time by
+     * a thread of their own, so that they do not delay the loading of requested tiles.
+     *
+     * @param tile id of the tile
+     */
+    public void prefetchTileFile(TileId tile) {
+        Path filePath = cachePath.resolve(tile.getFileNameLocal()).normalize();
+        if (pendingDownloads.size() >= MAX_PENDING_TILES_FOR_PREFETCH
+                || pendingTiles.containsKey(tile) || cachedTileImage(tile) != null || Files.exists(filePath)
+                || !pendingDownloads.add(tile)) return;
+
+        prefetchExecutor.execute(() -> {
+            try {
+                if (!Files.exists(filePath)) downloadTile(tile, filePath);
+            } catch (IOException | RuntimeException e) {
+                // the tile is only prefetched, it will be downloaded again if it is requested
+                System.out.println(e.getMessage());
+            } finally {
+                pendingDownloads.remove(tile);
+            }
+        });
+    }
+
+    /**
+     * Returns the image corresponding to a certain TileId if it is in the memory cache, without loading it
+     *
+     * @param tile id of the tile
+     * @return The image corresponding to the tile, or null if it is not in the memory cache
+     */
+    public Image cachedTileImage(TileId tile) {
+        synchronized (memoryCache) {
+            return memoryCache.get(tile);
         }
     }
 
+    /**
+     * Downloads the image corresponding to a certain TileId in the storage cache
+     *
+     * @param tile     id of the tile
+     * @param filePath Full path of the file of the tile in the storage cache
+     * @throws IOException in case of input/output errors
+     */
+    private void downloadTile(TileId tile, Path filePath) throws IOException {
+        URL u = tile.getURL(hostName);
+        URLConnection c = u.openConnection();
+        c.setRequestProperty("User-Agent", "JaVelo");
+        Files.createDirectories(filePath.getParent());
+
+        // the tile is downloaded in a temporary file, so that no other thread can read it partially written
+        Path downloadPath = Files.createTempFile(filePath.getParent(), null, null);
+        try (InputStream i = c.getInputStream();
+             FileOutputStream o = new FileOutputStream(downloadPath.toFile())) {
+            i.transferTo(o);
+        } catch (IOException e) {
+            Files.deleteIfExists(downloadPath);
+            throw e;
+        }
+        Files.move(downloadPath, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
     /**
      * Returns the contents of an image file, and adds the image to the memory cache
      *
@@ -82,7 +195,9 @@ public final class TileManager {
     private Image getImageFromFile(Path filePath, TileId tile) throws IOException {
         try (InputStream i = new FileInputStream(filePath.toFile())) {
             Image tileImage = new Image(i);
-            memoryCache.put(tile, tileImage);
+            synchronized (memoryCache) {
+                memoryCache.put(tile, tileImage);
+            }
             return tileImage;
         }
     }
@@ -1,5 +1,6 @@
 package ch.epfl.javelo.gui;
 
+import ch.epfl.javelo.Math2;
 import ch.epfl.javelo.data.Graph;
 import ch.epfl.javelo.projection.PointCh;
 import ch.epfl.javelo.projection.PointWebMercator;
@@ -55,15 +56,14 @@ public final class WayPointsManager {
      * @param y coordinate of a point to add (WebMercator)
      */
     public void addWaypoint(double x, double y) {
-        int closestNodeId = getClosestNodeId(x, y);
+        Waypoint waypoint = waypointAt(x, y);
 
-        if (closestNodeId < 0) {
+        if (waypoint == null) {
             signalError.accept(PROXIMITY_ERROR_MSG);
             return;
         }
 
-        PointCh pt = PointWebMercator.of(mapViewParameters.get().zoomLevel(), x, y).toPointCh();
-        wayPoints.add(new Waypoint(pt, closestNodeId));
+        wayPoints.add(waypoint);
 
     }
 
@@ -75,30 +75,43 @@ public final class WayPointsManager {
      * @return true if a WayPoint has been replaced, false otherwise
      */
     private boolean replaceWaypoint(double x, double y, Waypoint oldWaypoint) {
-        int closestNodeId = getClosestNodeId(x, y);
+        Waypoint waypoint = waypointAt(x, y);
 
-        if (closestNodeId < 0) {
+        if (waypoint == null) {
             signalError.accept(PROXIMITY_ERROR_MSG);
             return false;
         } else if (!wayPoints.contains(oldWaypoint)) {
             return false;
         }
 
-        PointCh pt = PointWebMercator.of(mapViewParameters.get().zoomLevel(), x, y).toPointCh();
-        wayPoints.set(wayPoints.indexOf(oldWaypoint), new Waypoint(pt, closestNodeId));
+        wayPoints.set(wayPoints.indexOf(oldWaypoint), waypoint);
         return true;
     }
 
     /**
-     * This method obtain the ID of the closest Node at a given position withing the Search Distance
+     * This method creates the Waypoint at the given position, snapped to the closest point of the closest edge
+     * within the Search Distance (which is the point of the waypoint, where its route starts or ends), and
+     * associated to the node of this edge which is closest to this point
      *
-     * @param x coordinate of a point to add (WebMercator)
-     * @param y coordinate of a point to add (WebMercator)
-     * @return the id of the Node
+     * @param x coordinate of the point (WebMercator)
+     * @param y coordinate of the point (WebMercator)
+     * @return the Waypoint, or null if there is no edge within the Search Distance
      */
-    private int getClosestNodeId(double x, double y) {
-        PointWebMercator point = PointWebMercator.of(mapViewParameters.get().zoomLevel(), x, y);
-        return graph.nodeClosestTo(point.toPointCh(), SEARCH_DISTANCE);
+    private Waypoint waypointAt(double x, double y) {
+        PointCh point = PointWebMercator.of(mapViewParameters.get().zoomLevel(), x, y).toPointCh();
+        Graph.EdgePosition edgePosition = graph.edgeClosestTo(point, SEARCH_DISTANCE);
+        if (edgePosition == null) return null;
+
+        int edgeId = edgePosition.edgeId();
+        double edgeLength = graph.edgeLength(edgeId);
+        double proportion = edgeLength == 0 ? 0 : edgePosition.position() / edgeLength;
+        PointCh fromPoint = graph.nodePoint(graph.edgeSourceNodeId(edgeId));
+        PointCh toPoint = graph.nodePoint(graph.edgeTargetNodeId(edgeId));
+        PointCh edgePoint = new PointCh(Math2.interpolate(fromPoint.e(), toPoint.e(), proportion),
+                Math2.interpolate(fromPoint.n(), toPoint.n(), proportion));
+
+        int closestNodeId = proportion <= 0.5 ? graph.edgeSourceNodeId(edgeId) : graph.edgeTargetNodeId(edgeId);
+        return new Waypoint(edgePoint, closestNodeId, edgePosition);
     }
 
 
@@ -1,39 +1,54 @@
 package ch.epfl.javelo.gui;
 
+import ch.epfl.javelo.data.Graph;
 import ch.epfl.javelo.projection.PointCh;
 
+import java.util.Objects;
+
 /**
  * WayPoint record
  * This record represents a waypoint
  *
- * @param point  : PointCh which represents a Waypoint
- * @param nodeID : nodeID associated to a specific Waypoint
+ * @param point        : PointCh which represents a Waypoint
+ * @param nodeID       : nodeID associated to a specific Waypoint
+ * @param edgePosition : position, on the closest edge, of the point of the edge closest to the Waypoint,
+ *                     or null if the Waypoint is only associated to its node
  * @author Wesley Nana Davies (344592)
  * @author David Farah (341017)
  */
-public record Waypoint(PointCh point, int nodeID) {
+public record Waypoint(PointCh point, int nodeID, Graph.EdgePosition edgePosition) {
+
+    /**
+     * Constructor of a Waypoint only associated to a node
+     *
+     * @param point  : PointCh which represents a Waypoint
+     * @param nodeID : nodeID associated to a specific Waypoint
+     */
+    public Waypoint(PointCh point, int nodeID) {
+        this(point, nodeID, null);
+    }
 
     /**
-     * Compare two Waypoints by their corresponding node id
+     * Compare two Waypoints by their corresponding node id and edge position
      *
      * @param o : other Waypoint to be compared with <code>this</code>
-     * @return true iff the 2 waypoints have the same node ID
+     * @return true iff the 2 waypoints have the same node ID and edge position
      */
     @Override
     public boolean equals(Object o) {
-        if (o instanceof Waypoint) {
-            return o.hashCode() == this.hashCode();
+        if (o instanceof Waypoint that) {
+            return that.nodeID == nodeID && Objects.equals(that.edgePosition, edgePosition);
         }
         return false;
     }
 
     /**
-     * This method makes the hash code of a Waypoint its node id
+     * This method makes the hash code of a Waypoint its node id, when it has no edge position
      *
-     * @return node ID of the Waypoint
+     * @return hash code of the Waypoint
      */
     @Override
     public int hashCode() {
-        return nodeID;
+        return edgePosition == null ? nodeID : 31 * nodeID + edgePosition.hashCode();
     }
 }
@@ -22,17 +22,7 @@ public final class Ch1903 {
      * @return the east coordinate
      */
     public static double e(double lon, double lat) {
-        // Conversion in degrees
-        lon = toDegrees(lon);
-        lat = toDegrees(lat);
-
-        double lambda1 = pow(10, -4) * (3_600 * lon - 26_782.5);
-        double phi1 = pow(10, -4) * (3_600 * lat - 169_028.66);
-        return 2_600_072.37
-                + 211_455.93 * lambda1
-                - 10_938.51 * lambda1 * phi1
-                - 0.36 * lambda1 * pow(phi1, 2)
-                - 44.54 * pow(lambda1, 3);
+        return eOfLambdaPhi(lambda1(lon), phi1(lat));
     }
 
     /**
@@ -43,18 +33,7 @@ public final class Ch1903 {
      * @return the north coordinate
      */
     public static double n(double lon, double lat) {
-        // Conversion in degrees
-        lon = toDegrees(lon);
-        lat = toDegrees(lat);
-
-        double lambda1 = pow(10, -4) * (3_600 * lon - 26_782.5);
-        double phi1 = pow(10, -4) * (3_600 * lat - 169_028.66);
-        return 1_200_147.07
-                + 308_807.95 * phi1
-                + 3_745.25 * pow(lambda1, 2)
-                + 76.63 * pow(phi1, 2)
-                - 194.56 * pow(lambda1, 2) * phi1
-                + 119.79 * pow(phi1, 3);
+        return nOfLambdaPhi(lambda1(lon), phi1(lat));
     }
 
     /**
@@ -65,16 +44,7 @@ public final class Ch1903 {
      * @return the longitude
      */
     public static double lon(double e, double n) {
-        double x = pow(10, -6) * (e - 2_600_000);
-        double y = pow(10, -6) * (n - 1_200_000);
-        double lambda0 = 2.6779094
-                + 4.728982 * x
-                + 0.791484 * x * y
-                + 0.1306 * x * pow(y, 2)
-                - 0.0436 * pow(x, 3);
-
-        double longitude = lambda0 * 100 / 36;
-        return toRadians(longitude);
+        return lonOfXY(x(e), y(n));
     }
 
     /**
@@ -85,16 +55,97 @@ public final class Ch1903 {
      * @return the latitude
      */
     public static double lat(double e, double n) {
-        double x = pow(10, -6) * (e - 2_600_000);
-        double y = pow(10, -6) * (n - 1_200_000);
-        double phi0 = 16.9023892
-                + 3.238272 * y
-                - 0.270978 * pow(x, 2)
-                - 0.002528 * pow(y, 2)
-                - 0.0447 * pow(x, 2) * y
-                - 0.0140 * pow(y, 3);
-        double latitude = phi0 * 100 / 36;
-        return toRadians(latitude);
+        return latOfXY(x(e), y(n));
+    }
+
+    // the polynomials below are written in Horner form, i.e. with as few multiplications as possible
+
+    /**
+     * Returns the auxiliary value λ1 of the given longitude
+     *
+     * @param lon : longitude (RAD)
+     * @return λ1
+     */
+    private static double lambda1(double lon) {
+        return 1e-4 * (3_600 * toDegrees(lon) - 26_782.5);
+    }
+
+    /**
+     * Returns the auxiliary value φ1 of the given latitude
+     *
+     * @param lat : latitude (RAD)
+     * @return φ1
+     */
+    private static double phi1(double lat) {
+        return 1e-4 * (3_600 * toDegrees(lat) - 169_028.66);
+    }
+
+    /**
+     * Returns the east coordinate of the point of the given auxiliary values
+     *
+     * @param lambda1 : auxiliary value λ1 of the longitude
+     * @param phi1    : auxiliary value φ1 of the latitude
+     * @return the east coordinate
+     */
+    private static double eOfLambdaPhi(double lambda1, double phi1) {
+        return 2_600_072.37
+                + lambda1 * (211_455.93 - phi1 * (10_938.51 + 0.36 * phi1) - 44.54 * lambda1 * lambda1);
+    }
+
+    /**
+     * Returns the north coordinate of the point of the given auxiliary values
+     *
+     * @param lambda1 : auxiliary value λ1 of the longitude
+     * @param phi1    : auxiliary value φ1 of the latitude
+     * @return the north coordinate
+     */
+    private static double nOfLambdaPhi(double lambda1, double phi1) {
+        return 1_200_147.07
+                + phi1 * (308_807.95 + phi1 * (76.63 + 119.79 * phi1))
+                + lambda1 * lambda1 * (3_745.25 - 194.56 * phi1);
+    }
+
+    /**
+     * Returns the auxiliary value x of the given east coordinate
+     *
+     * @param e : east coordinate
+     * @return x
+     */
+    private static double x(double e) {
+        return 1e-6 * (e - 2_600_000);
+    }
+
+    /**
+     * Returns the auxiliary value y of the given north coordinate
+     *
+     * @param n : north coordinate
+     * @return y
+     */
+    private static double y(double n) {
+        return 1e-6 * (n - 1_200_000);
     }
-}
 
+    /**
+     * Returns the longitude of the point of the given auxiliary values
+     *
+     * @param x : auxiliary value x of the east coordinate
+     * @param y : auxiliary value y of the north coordinate
+     * @return the longitude (RAD)
+     */
+    private static double lonOfXY(double x, double y) {
+        double lambda0 = 2.6779094 + x * (4.728982 + y * (0.791484 + 0.1306 * y) - 0.0436 * x * x);
+        return toRadians(lambda0 * 100 / 36);
+    }
+
+    /**
+     * Returns the latitude of the point of the given auxiliary values
+     *
+     * @param x : auxiliary value x of the east coordinate
+     * @param y : auxiliary value y of the north coordinate
+     * @return the latitude (RAD)
+     */
+    private static double latOfXY(double x, double y) {
+        double phi0 = 16.9023892 + y * (3.238272 - y * (0.002528 + 0.0140 * y)) - x * x * (0.270978 + 0.0447 * y);
+        return toRadians(phi0 * 100 / 36);
+    }
+}
@@ -0,0 +1,122 @@
+package ch.epfl.javelo.routing;
+
+import java.util.Arrays;
+
+
+/**
+ * Open set implemented as an indexed binary min-heap of node IDs (int) and priorities (float)
+ * stored in parallel arrays, supporting decrease-key without any allocation.
+ *
+ * @author David Farah (341017)
+ * @author Wesley Nana Davies(344592)
+ */
+final class BinaryHeapOpenSet implements OpenSet {
+    private static final int NOT_IN_HEAP = -1;
+    private final int[] heapNodes;
+    private final float[] heapPriorities;
+    private final int[] positions;
+    private int size;
+
+
+    /**
+     * Constructor of the class which creates an empty heap able to contain every node of the graph
+     *
+     * @param nodeCount : number of nodes of the graph
+     */
+    BinaryHeapOpenSet(int nodeCount) {
+        heapNodes = new int[nodeCount];
+        heapPriorities = new float[nodeCount];
+        positions = new int[nodeCount];
+        Arrays.fill(positions, NOT_IN_HEAP);
+    }
+
+    @Override
+    public void add(int nodeId, float priority) {
+        int position = positions[nodeId];
+        if (position == NOT_IN_HEAP) {
+            position = size++;
+        } else if (priority >= heapPriorities[position]) {
+            return;
+        }
+        siftUp(position, nodeId, priority);
+    }
+
+    @Override
+    public int remove() {
+        int nodeId = heapNodes[0];
+        positions[nodeId] = NOT_IN_HEAP;
+        size -= 1;
+        if (size > 0) {
+            siftDown(0, heapNodes[size], heapPriorities[size]);
+        }
+        return nodeId;
+    }
+
+    @Override
+    public float peekPriority() {
+        return heapPriorities[0];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heapNodes[i]] = NOT_IN_HEAP;
+        }
+        size = 0;
+    }
+
+    /**
+     * Moves the given node up from the given position until the heap property is restored
+     *
+     * @param position : position (hole) from which the node starts
+     * @param nodeId   : ID of the node
+     * @param priority : priority of the node
+     */
+    private void siftUp(int position, int nodeId, float priority) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (heapPriorities[parent] <= priority) break;
+            place(position, heapNodes[parent], heapPriorities[parent]);
+            position = parent;
+        }
+        place(position, nodeId, priority);
+    }
+
+    /**
+     * Moves the given node down from the given position until the heap property is restored
+     *
+     * @param position : position (hole) from which the node starts
+     * @param nodeId   : ID of the node
+     * @param priority : priority of the node
+     */
+    private void siftDown(int position, int nodeId, float priority) {
+        int child;
+        while ((child = 2 * position + 1) < size) {
+            if (child + 1 < size && heapPriorities[child + 1] < heapPriorities[child]) {
+                child += 1;
+            }
+            if (priority <= heapPriorities[child]) break;
+            place(position, heapNodes[child], heapPriorities[child]);
+            position = child;
+        }
+        place(position, nodeId, priority);
+    }
+
+    /**
+     * Stores the given node at the given position of the heap
+     *
+     * @param position : position in the heap
+     * @param nodeId   : ID of the node
+     * @param priority : priority of the node
+     */
+    private void place(int position, int nodeId, float priority) {
+        heapNodes[position] = nodeId;
+        heapPriorities[position] = priority;
+        positions[nodeId] = position;
+    }
+}
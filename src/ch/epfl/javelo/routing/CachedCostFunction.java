@@ -0,0 +1,55 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+
+import java.util.stream.IntStream;
+
+
+/**
+ * CachedCostFunction
+ * Cost function whose cost factors are those of another cost function depending only on the edges,
+ * computed once for every edge of the graph (in parallel) and stored in an array of floats,
+ * so that they are read instead of being evaluated at every relaxation of an edge.
+ *
+ * @author David Farah (341017)
+ * @author Wesley Nana Davies(344592)
+ */
+public final class CachedCostFunction implements CostFunction {
+    private final float[] costFactors;
+
+
+    /**
+     * Constructor of the class which computes the cost factor of every edge of the graph
+     *
+     * @param graph        : graph of the cost function
+     * @param costFunction : cost function depending only on the edges
+     */
+    private CachedCostFunction(Graph graph, CostFunction costFunction) {
+        costFactors = new float[graph.edgeCount()];
+        IntStream.range(0, costFactors.length).parallel()
+                .forEach(edgeId -> costFactors[edgeId] = (float) costFunction.costFactor(-1, edgeId));
+    }
+
+    /**
+     * Returns a cost function equivalent to the given one for the given graph: a cache of its cost factors
+     * if it only depends on the edges, the given cost function itself otherwise
+     *
+     * @param graph        : graph of the cost function
+     * @param costFunction : cost function to cache
+     * @return the cost function
+     */
+    public static CostFunction of(Graph graph, CostFunction costFunction) {
+        return costFunction.dependsOnlyOnEdge() && !(costFunction instanceof CachedCostFunction) ?
+                new CachedCostFunction(graph, costFunction) : costFunction;
+    }
+
+    @Override
+    public double costFactor(int nodeId, int edgeId) {
+        return costFactors[edgeId];
+    }
+
+    @Override
+    public boolean dependsOnlyOnEdge() {
+        return true;
+    }
+}
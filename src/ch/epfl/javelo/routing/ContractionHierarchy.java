@@ -0,0 +1,408 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+
+/**
+ * ContractionHierarchy
+ * Contraction hierarchy of a graph for a fixed cost function, built offline by ContractionHierarchyBuilder.
+ * It contains the rank of every node and a set of arcs: the original edges (with a finite cost)
+ * and the shortcuts, each shortcut replacing two arcs going through a node of lower rank.
+ * Routes are computed by two Dijkstra searches which only go towards nodes of higher rank,
+ * then shortcuts are unpacked back into edges of the graph.
+ * <p>
+ * The hierarchy is immutable once built: the state of a query lives in a Search, so that routes can be
+ * computed by several threads at the same time.
+ *
+ * @author David Farah (341017)
+ * @author Wesley Nana Davies(344592)
+ */
+public final class ContractionHierarchy {
+    /**
+     * Name of the file containing the hierarchy, stored next to the files of the graph
+     */
+    public static final String FILE_NAME = "ch.bin";
+    static final int NO_ARC = -1;
+    private static final int MAGIC_NUMBER = 0x4A564348; // "JVCH"
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+    private static final int BYTES_PER_ARC = 4 * Integer.BYTES + Float.BYTES;
+
+    private final Graph graph;
+    private final int[] ranks;
+    private final int[] arcFrom;
+    private final int[] arcTo;
+    private final float[] arcCost;
+    private final int[] arcFirst;
+    private final int[] arcSecond;
+    private final int[] firstUpwardOutArc;
+    private final int[] upwardOutArcs;
+    private final int[] firstUpwardInArc;
+    private final int[] upwardInArcs;
+    private final ThreadLocal<Search> threadSearches = ThreadLocal.withInitial(Search::new);
+
+
+    /**
+     * Constructor of the class which creates the hierarchy of the given graph from its ranks and arcs.
+     * For an original arc, first is the ID of the edge and second is NO_ARC,
+     * for a shortcut, first and second are the IDs of the two arcs it replaces.
+     *
+     * @param graph     : graph of the hierarchy
+     * @param ranks     : rank of every node (order of contraction)
+     * @param arcFrom   : node the arc leaves from, for every arc
+     * @param arcTo     : node the arc arrives at, for every arc
+     * @param arcCost   : cost of every arc
+     * @param arcFirst  : edge or first arc replaced, for every arc
+     * @param arcSecond : NO_ARC or second arc replaced, for every arc
+     * @throws IllegalArgumentException if the number of ranks is not the number of nodes of the graph
+     */
+    ContractionHierarchy(Graph graph, int[] ranks,
+                         int[] arcFrom, int[] arcTo, float[] arcCost, int[] arcFirst, int[] arcSecond) {
+        Preconditions.checkArgument(ranks.length == graph.nodeCount());
+        this.graph = graph;
+        this.ranks = ranks;
+        this.arcFrom = arcFrom;
+        this.arcTo = arcTo;
+        this.arcCost = arcCost;
+        this.arcFirst = arcFirst;
+        this.arcSecond = arcSecond;
+
+        int nodeCount = graph.nodeCount();
+        firstUpwardOutArc = new int[nodeCount + 1];
+        firstUpwardInArc = new int[nodeCount + 1];
+        for (int arc = 0; arc < arcFrom.length; arc++) {
+            if (ranks[arcFrom[arc]] < ranks[arcTo[arc]]) firstUpwardOutArc[arcFrom[arc] + 1] += 1;
+            else firstUpwardInArc[arcTo[arc] + 1] += 1;
+        }
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            firstUpwardOutArc[nodeId + 1] += firstUpwardOutArc[nodeId];
+            firstUpwardInArc[nodeId + 1] += firstUpwardInArc[nodeId];
+        }
+        upwardOutArcs = new int[firstUpwardOutArc[nodeCount]];
+        upwardInArcs = new int[firstUpwardInArc[nodeCount]];
+        int[] nextOutArcIndex = Arrays.copyOf(firstUpwardOutArc, nodeCount);
+        int[] nextInArcIndex = Arrays.copyOf(firstUpwardInArc, nodeCount);
+        for (int arc = 0; arc < arcFrom.length; arc++) {
+            if (ranks[arcFrom[arc]] < ranks[arcTo[arc]]) upwardOutArcs[nextOutArcIndex[arcFrom[arc]]++] = arc;
+            else upwardInArcs[nextInArcIndex[arcTo[arc]]++] = arc;
+        }
+
+    }
+
+    /**
+     * Returns the contraction hierarchy of the given graph stored in the given file
+     *
+     * @param file  : path of the file written by writeTo
+     * @param graph : graph of the hierarchy
+     * @return the contraction hierarchy
+     * @throws IOException              in the event of an input/output error
+     * @throws IllegalArgumentException if the file does not contain a hierarchy of the given graph
+     */
+    public static ContractionHierarchy loadFrom(Path file, Graph graph) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        Preconditions.checkArgument(buffer.getInt() == MAGIC_NUMBER
+                && buffer.getInt() == graph.nodeCount()
+                && buffer.getInt() == graph.edgeCount());
+        int arcCount = buffer.getInt();
+
+        int[] ranks = new int[graph.nodeCount()];
+        buffer.asIntBuffer().get(ranks);
+        buffer.position(HEADER_BYTES + ranks.length * Integer.BYTES);
+
+        int[] arcFrom = new int[arcCount];
+        int[] arcTo = new int[arcCount];
+        float[] arcCost = new float[arcCount];
+        int[] arcFirst = new int[arcCount];
+        int[] arcSecond = new int[arcCount];
+        for (int arc = 0; arc < arcCount; arc++) {
+            arcFrom[arc] = buffer.getInt();
+            arcTo[arc] = buffer.getInt();
+            arcCost[arc] = buffer.getFloat();
+            arcFirst[arc] = buffer.getInt();
+            arcSecond[arc] = buffer.getInt();
+        }
+        return new ContractionHierarchy(graph, ranks, arcFrom, arcTo, arcCost, arcFirst, arcSecond);
+    }
+
+    /**
+     * Writes the hierarchy to the given file
+     *
+     * @param file : path of the file
+     * @throws IOException in the event of an input/output error
+     */
+    public void writeTo(Path file) throws IOException {
+        try (OutputStream o = Files.newOutputStream(file);
+             DataOutputStream d = new DataOutputStream(new BufferedOutputStream(o,
+                     HEADER_BYTES + BYTES_PER_ARC * 1024))) {
+            d.writeInt(MAGIC_NUMBER);
+            d.writeInt(graph.nodeCount());
+            d.writeInt(graph.edgeCount());
+            d.writeInt(arcCount());
+            for (int rank : ranks) {
+                d.writeInt(rank);
+            }
+            for (int arc = 0; arc < arcCount(); arc++) {
+                d.writeInt(arcFrom[arc]);
+                d.writeInt(arcTo[arc]);
+                d.writeFloat(arcCost[arc]);
+                d.writeInt(arcFirst[arc]);
+                d.writeInt(arcSecond[arc]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of arcs (edges and shortcuts) of the hierarchy
+     *
+     * @return the number of arcs
+     */
+    public int arcCount() {
+        return arcFrom.length;
+    }
+
+
+    /**
+     * Computes the cheapest route between the given nodes, with the search state of the calling thread
+     *
+     * @param startNodeId : ID of the initial node
+     * @param endNodeId   : ID of the final node
+     * @return a route, or null if there is none
+     * @throws IllegalArgumentException if the start and end nodes are the same
+     */
+    public Route bestRouteBetween(int startNodeId, int endNodeId) {
+        RoutePath path = bestPathBetween(startNodeId, endNodeId);
+        return path == null ? null : path.toRoute();
+    }
+
+    /**
+     * Computes the cheapest path between the given nodes, with the search state of the calling thread
+     *
+     * @param startNodeId : ID of the initial node
+     * @param endNodeId   : ID of the final node
+     * @return a path, or null if there is none
+     * @throws IllegalArgumentException if the start and end nodes are the same
+     */
+    public RoutePath bestPathBetween(int startNodeId, int endNodeId) {
+        return threadSearches.get().bestPathBetween(startNodeId, endNodeId);
+    }
+
+    /**
+     * Returns a new search state, to be used by a single thread at a time
+     *
+     * @return the search state
+     */
+    Search newSearch() {
+        return new Search();
+    }
+
+
+    /**
+     * State of a query on the hierarchy: open sets, distances and arcs of both searches.
+     * The hierarchy itself is never modified, so that several searches can run at the same time
+     * as long as each of them uses its own state.
+     */
+    final class Search {
+        private final BinaryHeapOpenSet forwardNodesToExplore;
+        private final BinaryHeapOpenSet backwardNodesToExplore;
+        private final float[] forwardDistances;
+        private final float[] backwardDistances;
+        private final int[] forwardArcs;
+        private final int[] backwardArcs;
+        private final int[] touchedNodes;
+        private int touchedCount;
+        private int[] arcsToUnpack = new int[64];
+        private int[] unpackedEdgeIds = new int[64];
+
+
+        /**
+         * Constructor of the class which allocates the arrays of the searches
+         */
+        private Search() {
+            int nodeCount = graph.nodeCount();
+            forwardNodesToExplore = new BinaryHeapOpenSet(nodeCount);
+            backwardNodesToExplore = new BinaryHeapOpenSet(nodeCount);
+            forwardDistances = new float[nodeCount];
+            backwardDistances = new float[nodeCount];
+            Arrays.fill(forwardDistances, Float.POSITIVE_INFINITY);
+            Arrays.fill(backwardDistances, Float.POSITIVE_INFINITY);
+            forwardArcs = new int[nodeCount];
+            backwardArcs = new int[nodeCount];
+            touchedNodes = new int[2 * nodeCount];
+        }
+
+        /**
+         * Computes the cheapest path between the given nodes
+         *
+         * @param startNodeId : ID of the initial node
+         * @param endNodeId   : ID of the final node
+         * @return a path, or null if there is none
+         * @throws IllegalArgumentException if the start and end nodes are the same
+         */
+        RoutePath bestPathBetween(int startNodeId, int endNodeId) {
+            Preconditions.checkArgument(startNodeId != endNodeId);
+
+            // the search is reset even if it fails, so that the next one starts from a clean state
+            try {
+                touch(startNodeId);
+                touch(endNodeId);
+                forwardDistances[startNodeId] = 0;
+                backwardDistances[endNodeId] = 0;
+                forwardNodesToExplore.add(startNodeId, 0);
+                backwardNodesToExplore.add(endNodeId, 0);
+
+                float bestRouteCost = Float.POSITIVE_INFINITY;
+                int meetingNodeId = -1;
+
+                while (!forwardNodesToExplore.isEmpty() || !backwardNodesToExplore.isEmpty()) {
+                    boolean forward = backwardNodesToExplore.isEmpty() || (!forwardNodesToExplore.isEmpty()
+                            && forwardNodesToExplore.peekPriority() <= backwardNodesToExplore.peekPriority());
+                    BinaryHeapOpenSet nodesToExplore = forward ? forwardNodesToExplore : backwardNodesToExplore;
+
+                    // a search is over once its smallest distance reaches the cost of the best route found
+                    if (nodesToExplore.peekPriority() >= bestRouteCost) {
+                        nodesToExplore.clear();
+                        continue;
+                    }
+
+                    int nodeId = nodesToExplore.remove();
+                    float routeCost = forwardDistances[nodeId] + backwardDistances[nodeId];
+                    if (routeCost < bestRouteCost) {
+                        bestRouteCost = routeCost;
+                        meetingNodeId = nodeId;
+                    }
+
+                    if (forward) {
+                        relax(nodeId, firstUpwardOutArc, upwardOutArcs, arcTo, forwardDistances, forwardArcs,
+                                forwardNodesToExplore);
+                    } else {
+                        relax(nodeId, firstUpwardInArc, upwardInArcs, arcFrom, backwardDistances, backwardArcs,
+                                backwardNodesToExplore);
+                    }
+                }
+
+                int[] edgeIds = meetingNodeId == -1 ? null : pathEdgeIds(startNodeId, endNodeId, meetingNodeId);
+                return edgeIds == null ? null : new RoutePath(graph, startNodeId, edgeIds, bestRouteCost);
+            } finally {
+                resetSearch();
+            }
+        }
+
+        /**
+         * Relaxes the upward arcs of the given node, in one direction of the search
+         *
+         * @param nodeId         : ID of the node
+         * @param firstArcIndex  : index of the first upward arc of every node
+         * @param arcs           : upward arcs of all the nodes
+         * @param arcNeighbours  : node reached by every arc in this direction
+         * @param distances      : distances of the nodes in this direction
+         * @param reachedByArcs  : arc by which every node has been reached in this direction
+         * @param nodesToExplore : open set of this direction
+         */
+        private void relax(int nodeId, int[] firstArcIndex, int[] arcs, int[] arcNeighbours,
+                           float[] distances, int[] reachedByArcs, BinaryHeapOpenSet nodesToExplore) {
+            for (int i = firstArcIndex[nodeId]; i < firstArcIndex[nodeId + 1]; i++) {
+                int arc = arcs[i];
+                int neighbourId = arcNeighbours[arc];
+                float distance = distances[nodeId] + arcCost[arc];
+                if (distance < distances[neighbourId]) {
+                    touch(neighbourId);
+                    distances[neighbourId] = distance;
+                    reachedByArcs[neighbourId] = arc;
+                    nodesToExplore.add(neighbourId, distance);
+                }
+            }
+        }
+
+        /**
+         * Records that the distances of the given node are about to be modified by the current search
+         *
+         * @param nodeId : ID of the node
+         */
+        private void touch(int nodeId) {
+            if (forwardDistances[nodeId] == Float.POSITIVE_INFINITY
+                    && backwardDistances[nodeId] == Float.POSITIVE_INFINITY) {
+                touchedNodes[touchedCount++] = nodeId;
+            }
+        }
+
+        /**
+         * Resets the distances of the nodes reached by the last search, and empties its open sets
+         */
+        private void resetSearch() {
+            forwardNodesToExplore.clear();
+            backwardNodesToExplore.clear();
+            for (int i = 0; i < touchedCount; i++) {
+                forwardDistances[touchedNodes[i]] = Float.POSITIVE_INFINITY;
+                backwardDistances[touchedNodes[i]] = Float.POSITIVE_INFINITY;
+            }
+            touchedCount = 0;
+        }
+
+        /**
+         * Returns the IDs of the edges of the path going through the given meeting node,
+         * unpacking all the shortcuts of both searches
+         *
+         * @param startNodeId   : ID of the initial node
+         * @param endNodeId     : ID of the final node
+         * @param meetingNodeId : ID of the node where both searches met
+         * @return the IDs of the edges, in order
+         */
+        private int[] pathEdgeIds(int startNodeId, int endNodeId, int meetingNodeId) {
+            // the arcs are unpacked from a stack, so that the arcs of the backward search, which are found from
+            // the meeting node to the end node, are pushed in reverse order before those of the forward search
+            int size = 0;
+            for (int nodeId = meetingNodeId; nodeId != endNodeId; nodeId = arcTo[backwardArcs[nodeId]]) {
+                pushArc(size++, backwardArcs[nodeId]);
+            }
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                int arc = arcsToUnpack[i];
+                arcsToUnpack[i] = arcsToUnpack[j];
+                arcsToUnpack[j] = arc;
+            }
+            for (int nodeId = meetingNodeId; nodeId != startNodeId; nodeId = arcFrom[forwardArcs[nodeId]]) {
+                pushArc(size++, forwardArcs[nodeId]);
+            }
+
+            int edgesCount = 0;
+            while (size > 0) {
+                int arc = arcsToUnpack[--size];
+                if (arcSecond[arc] == NO_ARC) {
+                    if (edgesCount == unpackedEdgeIds.length) {
+                        unpackedEdgeIds = Arrays.copyOf(unpackedEdgeIds, 2 * edgesCount);
+                    }
+                    unpackedEdgeIds[edgesCount++] = arcFirst[arc];
+                } else {
+                    // the second arc is pushed first so that the first one is unpacked first
+                    pushArc(size++, arcSecond[arc]);
+                    pushArc(size++, arcFirst[arc]);
+                }
+            }
+            return Arrays.copyOf(unpackedEdgeIds, edgesCount);
+        }
+
+        /**
+         * Puts the given arc at the given index of the stack of arcs to unpack, which grows if needed
+         *
+         * @param index : index in the stack
+         * @param arc   : ID of the arc
+         */
+        private void pushArc(int index, int arc) {
+            if (index == arcsToUnpack.length) arcsToUnpack = Arrays.copyOf(arcsToUnpack, 2 * index);
+            arcsToUnpack[index] = arc;
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+
+/**
+ * ContractionHierarchyBuilder
+ * Offline tool which contracts all the nodes of a graph, for a given cost function,
+ * and builds the corresponding ContractionHierarchy.
+ * <p>
+ * Nodes are contracted by increasing priority (edge difference plus number of contracted neighbours),
+ * the priorities being updated lazily. A shortcut is added between two neighbours of the contracted node
+ * unless a local witness search finds a path which is at least as cheap without going through it.
+ * An arc replaced by a cheaper one between the same nodes is dropped from the hierarchy.
+ *
+ * @author David Farah (341017)
+ * @author Wesley Nana Davies(344592)
+ */
+public final class ContractionHierarchyBuilder {
+    private static final int WITNESS_SETTLED_NODES_LIMIT = 500;
+    private static final int INITIAL_ADJACENCY_CAPACITY = 4;
+
+    private final Graph graph;
+    private final CostFunction costFunction;
+
+    private int[] arcFrom;
+    private int[] arcTo;
+    private float[] arcCost;
+    private int[] arcFirst;
+    private int[] arcSecond;
+    private boolean[] arcSuperseded;
+    private int arcCount;
+
+    private final int[][] outArcs;
+    private final int[] outArcCount;
+    private final int[][] inArcs;
+    private final int[] inArcCount;
+    private final int[] contractedNeighbours;
+    private final int[] ranks;
+
+    private final BinaryHeapOpenSet witnessNodesToExplore;
+    private final float[] witnessDistances;
+    private final int[] witnessTouchedNodes;
+    private int witnessTouchedCount;
+
+
+    /**
+     * Constructor of the class which prepares the contraction of the given graph.
+     * Only the edges with a finite cost are kept in the hierarchy.
+     *
+     * @param graph        : graph to contract
+     * @param costFunction : cost function of the routes
+     */
+    private ContractionHierarchyBuilder(Graph graph, CostFunction costFunction) {
+        this.graph = graph;
+        this.costFunction = costFunction;
+        int nodeCount = graph.nodeCount();
+
+        int initialArcCapacity = Math.max(16, graph.edgeCount() * 2);
+        arcFrom = new int[initialArcCapacity];
+        arcTo = new int[initialArcCapacity];
+        arcCost = new float[initialArcCapacity];
+        arcFirst = new int[initialArcCapacity];
+        arcSecond = new int[initialArcCapacity];
+        arcSuperseded = new boolean[initialArcCapacity];
+
+        outArcs = new int[nodeCount][];
+        outArcCount = new int[nodeCount];
+        inArcs = new int[nodeCount][];
+        inArcCount = new int[nodeCount];
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            outArcs[nodeId] = new int[INITIAL_ADJACENCY_CAPACITY];
+            inArcs[nodeId] = new int[INITIAL_ADJACENCY_CAPACITY];
+        }
+        contractedNeighbours = new int[nodeCount];
+        ranks = new int[nodeCount];
+
+        witnessNodesToExplore = new BinaryHeapOpenSet(nodeCount);
+        witnessDistances = new float[nodeCount];
+        Arrays.fill(witnessDistances, Float.POSITIVE_INFINITY);
+        witnessTouchedNodes = new int[nodeCount];
+
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                float cost = (float) (graph.edgeLength(edgeId) * costFunction.costFactor(nodeId, edgeId));
+                int toNodeId = graph.edgeTargetNodeId(edgeId);
+                if (cost != Float.POSITIVE_INFINITY && toNodeId != nodeId) {
+                    addArcIfCheaper(nodeId, toNodeId, cost, edgeId, ContractionHierarchy.NO_ARC);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the contraction hierarchy of the given graph for the given cost function
+     *
+     * @param graph        : graph to contract
+     * @param costFunction : cost function of the routes
+     * @return the contraction hierarchy
+     */
+    public static ContractionHierarchy build(Graph graph, CostFunction costFunction) {
+        return new ContractionHierarchyBuilder(graph, costFunction).contractAll();
+    }
+
+    /**
+     * Builds the contraction hierarchy of the JaVelo graph stored in the directory given as first argument,
+     * for the CityBikeCF cost function, and writes it next to the graph files
+     * (or to the file given as second argument).
+     *
+     * @param args : directory of the graph, and optionally the output file
+     * @throws IOException in the event of an input/output error
+     */
+    public static void main(String[] args) throws IOException {
+        Path basePath = Path.of(args.length > 0 ? args[0] : "javelo-data");
+        Path outputPath = args.length > 1 ? Path.of(args[1]) : basePath.resolve(ContractionHierarchy.FILE_NAME);
+
+        Graph graph = Graph.loadFrom(basePath);
+        long t0 = System.nanoTime();
+        ContractionHierarchy hierarchy = build(graph, CachedCostFunction.of(graph, new CityBikeCF(graph)));
+        System.out.printf("Hiérarchie de %d arcs construite en %d s\n",
+                hierarchy.arcCount(), (System.nanoTime() - t0) / 1_000_000_000);
+
+        hierarchy.writeTo(outputPath);
+    }
+
+    /**
+     * Contracts all the nodes of the graph and returns the resulting hierarchy
+     *
+     * @return the contraction hierarchy
+     */
+    private ContractionHierarchy contractAll() {
+        int nodeCount = graph.nodeCount();
+        BinaryHeapOpenSet nodesToContract = new BinaryHeapOpenSet(nodeCount);
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            nodesToContract.add(nodeId, priority(nodeId));
+        }
+
+        int nextRank = 0;
+        while (!nodesToContract.isEmpty()) {
+            int nodeId = nodesToContract.remove();
+
+            // lazy update: the priority may have increased since the node was added
+            float priority = priority(nodeId);
+            if (!nodesToContract.isEmpty() && priority > nodesToContract.peekPriority()) {
+                nodesToContract.add(nodeId, priority);
+                continue;
+            }
+
+            contract(nodeId, false);
+            ranks[nodeId] = nextRank++;
+        }
+
+        removeSupersededArcs();
+        return new ContractionHierarchy(graph, ranks,
+                Arrays.copyOf(arcFrom, arcCount), Arrays.copyOf(arcTo, arcCount), Arrays.copyOf(arcCost, arcCount),
+                Arrays.copyOf(arcFirst, arcCount), Arrays.copyOf(arcSecond, arcCount));
+    }
+
+    /**
+     * Removes the arcs which have been replaced by cheaper ones from the arc arrays, renumbering the others.
+     * A replaced arc was no longer in the remaining graph, so no shortcut replaces it.
+     */
+    private void removeSupersededArcs() {
+        int[] newArcIds = new int[arcCount];
+        int keptCount = 0;
+        for (int arc = 0; arc < arcCount; arc++) {
+            if (arcSuperseded[arc]) continue;
+
+            // the arcs replaced by a shortcut have been added before it, so they already have their new ID
+            boolean isShortcut = arcSecond[arc] != ContractionHierarchy.NO_ARC;
+            int first = isShortcut ? newArcIds[arcFirst[arc]] : arcFirst[arc];
+            int second = isShortcut ? newArcIds[arcSecond[arc]] : ContractionHierarchy.NO_ARC;
+            newArcIds[arc] = keptCount;
+            arcFrom[keptCount] = arcFrom[arc];
+            arcTo[keptCount] = arcTo[arc];
+            arcCost[keptCount] = arcCost[arc];
+            arcFirst[keptCount] = first;
+            arcSecond[keptCount] = second;
+            keptCount += 1;
+        }
+        arcCount = keptCount;
+    }
+
+    /**
+     * Returns the contraction priority of the given node: number of shortcuts its contraction would add,
+     * minus the number of arcs it would remove, plus the number of its neighbours already contracted.
+     *
+     * @param nodeId : ID of the node
+     * @return the priority (the smallest is contracted first)
+     */
+    private float priority(int nodeId) {
+        int shortcutCount = contract(nodeId, true);
+        return shortcutCount - inArcCount[nodeId] - outArcCount[nodeId] + contractedNeighbours[nodeId];
+    }
+
+    /**
+     * Contracts the given node, i.e. adds the shortcuts needed to preserve the costs between its remaining
+     * neighbours and removes it from the remaining graph, or only counts those shortcuts if simulate is true.
+     *
+     * @param nodeId   : ID of the node
+     * @param simulate : true iff the graph must not be modified
+     * @return the number of shortcuts needed
+     */
+    private int contract(int nodeId, boolean simulate) {
+        int shortcutCount = 0;
+
+        for (int i = 0; i < inArcCount[nodeId]; i++) {
+            int inArc = inArcs[nodeId][i];
+            int fromNodeId = arcFrom[inArc];
+
+            float maxCost = Float.NEGATIVE_INFINITY;
+            for (int j = 0; j < outArcCount[nodeId]; j++) {
+                int outArc = outArcs[nodeId][j];
+                if (arcTo[outArc] != fromNodeId) maxCost = Math.max(maxCost, arcCost[inArc] + arcCost[outArc]);
+            }
+            if (maxCost == Float.NEGATIVE_INFINITY) continue;
+
+            witnessSearch(fromNodeId, nodeId, maxCost);
+            for (int j = 0; j < outArcCount[nodeId]; j++) {
+                int outArc = outArcs[nodeId][j];
+                int toNodeId = arcTo[outArc];
+                float cost = arcCost[inArc] + arcCost[outArc];
+                if (toNodeId != fromNodeId && witnessDistances[toNodeId] > cost) {
+                    shortcutCount += 1;
+                    if (!simulate) addArcIfCheaper(fromNodeId, toNodeId, cost, inArc, outArc);
+                }
+            }
+            resetWitnessSearch();
+        }
+
+        if (!simulate) removeFromRemainingGraph(nodeId);
+        return shortcutCount;
+    }
+
+    /**
+     * Computes the cheapest costs from the given node to the nodes of the remaining graph, without going through
+     * the ignored node, until the given maximum cost or the maximum number of settled nodes is reached.
+     *
+     * @param startNodeId   : ID of the node from which the search starts
+     * @param ignoredNodeId : ID of the node which is being contracted
+     * @param maxCost       : cost above which the search stops
+     */
+    private void witnessSearch(int startNodeId, int ignoredNodeId, float maxCost) {
+        touchWitness(startNodeId, 0);
+        witnessNodesToExplore.add(startNodeId, 0);
+
+        int settledCount = 0;
+        while (!witnessNodesToExplore.isEmpty()
+                && witnessNodesToExplore.peekPriority() <= maxCost
+                && settledCount < WITNESS_SETTLED_NODES_LIMIT) {
+            int nodeId = witnessNodesToExplore.remove();
+            settledCount += 1;
+
+            for (int i = 0; i < outArcCount[nodeId]; i++) {
+                int arc = outArcs[nodeId][i];
+                int toNodeId = arcTo[arc];
+                float distance = witnessDistances[nodeId] + arcCost[arc];
+                if (toNodeId != ignoredNodeId && distance < witnessDistances[toNodeId]) {
+                    touchWitness(toNodeId, distance);
+                    witnessNodesToExplore.add(toNodeId, distance);
+                }
+            }
+        }
+        witnessNodesToExplore.clear();
+    }
+
+    /**
+     * Stores the given distance of the given node during a witness search
+     *
+     * @param nodeId   : ID of the node
+     * @param distance : distance from the start of the witness search
+     */
+    private void touchWitness(int nodeId, float distance) {
+        if (witnessDistances[nodeId] == Float.POSITIVE_INFINITY) {
+            witnessTouchedNodes[witnessTouchedCount++] = nodeId;
+        }
+        witnessDistances[nodeId] = distance;
+    }
+
+    /**
+     * Resets the distances of the nodes reached by the last witness search
+     */
+    private void resetWitnessSearch() {
+        for (int i = 0; i < witnessTouchedCount; i++) {
+            witnessDistances[witnessTouchedNodes[i]] = Float.POSITIVE_INFINITY;
+        }
+        witnessTouchedCount = 0;
+    }
+
+    /**
+     * Removes the arcs of the given (contracted) node from the adjacency of its neighbours
+     *
+     * @param nodeId : ID of the node
+     */
+    private void removeFromRemainingGraph(int nodeId) {
+        for (int i = 0; i < inArcCount[nodeId]; i++) {
+            int fromNodeId = arcFrom[inArcs[nodeId][i]];
+            removeArc(outArcs[fromNodeId], outArcCount, fromNodeId, inArcs[nodeId][i]);
+            contractedNeighbours[fromNodeId] += 1;
+        }
+        for (int i = 0; i < outArcCount[nodeId]; i++) {
+            int toNodeId = arcTo[outArcs[nodeId][i]];
+            removeArc(inArcs[toNodeId], inArcCount, toNodeId, outArcs[nodeId][i]);
+            contractedNeighbours[toNodeId] += 1;
+        }
+        outArcs[nodeId] = null;
+        inArcs[nodeId] = null;
+        outArcCount[nodeId] = 0;
+        inArcCount[nodeId] = 0;
+    }
+
+    /**
+     * Adds an arc to the remaining graph, unless an arc at most as expensive already links the same nodes
+     * (in which case nothing is done), replacing a more expensive one if there is any, which is then marked
+     * as superseded.
+     *
+     * @param fromNodeId : ID of the node the arc leaves from
+     * @param toNodeId   : ID of the node the arc arrives at
+     * @param cost       : cost of the arc
+     * @param first      : ID of the edge (original arc), or of the first arc of the shortcut
+     * @param second     : NO_ARC (original arc), or ID of the second arc of the shortcut
+     */
+    private void addArcIfCheaper(int fromNodeId, int toNodeId, float cost, int first, int second) {
+        for (int i = 0; i < outArcCount[fromNodeId]; i++) {
+            int arc = outArcs[fromNodeId][i];
+            if (arcTo[arc] == toNodeId) {
+                if (arcCost[arc] <= cost) return;
+                removeArc(outArcs[fromNodeId], outArcCount, fromNodeId, arc);
+                removeArc(inArcs[toNodeId], inArcCount, toNodeId, arc);
+                arcSuperseded[arc] = true;
+                break;
+            }
+        }
+
+        if (arcCount == arcFrom.length) {
+            int capacity = arcCount + (arcCount >> 1);
+            arcFrom = Arrays.copyOf(arcFrom, capacity);
+            arcTo = Arrays.copyOf(arcTo, capacity);
+            arcCost = Arrays.copyOf(arcCost, capacity);
+            arcFirst = Arrays.copyOf(arcFirst, capacity);
+            arcSecond = Arrays.copyOf(arcSecond, capacity);
+            arcSuperseded = Arrays.copyOf(arcSuperseded, capacity);
+        }
+        int arc = arcCount++;
+        arcFrom[arc] = fromNodeId;
+        arcTo[arc] = toNodeId;
+        arcCost[arc] = cost;
+        arcFirst[arc] = first;
+        arcSecond[arc] = second;
+
+        if (outArcCount[fromNodeId] == outArcs[fromNodeId].length)
+            outArcs[fromNodeId] = Arrays.copyOf(outArcs[fromNodeId], 2 * outArcCount[fromNodeId]);
+        outArcs[fromNodeId][outArcCount[fromNodeId]++] = arc;
+        if (inArcCount[toNodeId] == inArcs[toNodeId].length)
+            inArcs[toNodeId] = Arrays.copyOf(inArcs[toNodeId], 2 * inArcCount[toNodeId]);
+        inArcs[toNodeId][inArcCount[toNodeId]++] = arc;
+    }
+
+    /**
+     * Removes the given arc from the given adjacency array of the given node (swapping it with the last one)
+     *
+     * @param adjacency : adjacency array of the node
+     * @param counts    : numbers of arcs in the adjacency arrays of all nodes
+     * @param nodeId    : ID of the node
+     * @param arc       : ID of the arc to remove
+     */
+    private static void removeArc(int[] adjacency, int[] counts, int nodeId, int arc) {
+        for (int i = 0; i < counts[nodeId]; i++) {
+            if (adjacency[i] == arc) {
+                adjacency[i] = adjacency[--counts[nodeId]];
+                return;
+            }
+        }
+    }
+}
@@ -8,4 +8,15 @@ package ch.epfl.javelo.routing;
  */
 public interface CostFunction {
     double costFactor(int nodeId, int edgeId);
+
+    /**
+     * Returns true iff the cost factor of an edge only depends on the edge, and not on the node it is
+     * traversed from nor on any other state, so that it can be computed once for every edge and cached
+     * (see CachedCostFunction). False by default.
+     *
+     * @return true iff the cost factor only depends on the edge
+     */
+    default boolean dependsOnlyOnEdge() {
+        return false;
+    }
 }
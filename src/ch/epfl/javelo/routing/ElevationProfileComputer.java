@@ -4,6 +4,7 @@ import ch.epfl.javelo.Math2;
 import ch.epfl.javelo.Preconditions;
 
 import java.util.Arrays;
+import java.util.List;
 
 
 /**
@@ -13,8 +14,6 @@ import java.util.Arrays;
  * @author Wesley Nana Davies(344592)
  */
 public final class ElevationProfileComputer {
-    private static float[] profile;
-    private static double intervalLength;
 
     private ElevationProfileComputer() {
     }
@@ -28,33 +27,110 @@ public final class ElevationProfileComputer {
      * @throws IllegalArgumentException if maxStepLength <= 0
      */
     public static ElevationProfile elevationProfile(Route route, double maxStepLength) {
+        float[] profile = elevationSamples(route, maxStepLength);
+        fillNanValues(profile);
+        return new ElevationProfile(route.length(), profile);
+    }
+
+    /**
+     * Returns the elevations of the route at evenly spaced positions, from its start to its end,
+     * at most maxStepLength apart, which are NaN where the route has no profile. These are the samples
+     * from which elevationProfile computes the profile of the route.
+     *
+     * @param route         : a route (implementing the interface) representing the itinerary
+     * @param maxStepLength : maximal distance between two samples from the profile
+     * @return the samples
+     * @throws IllegalArgumentException if maxStepLength <= 0
+     */
+    public static float[] elevationSamples(Route route, double maxStepLength) {
         Preconditions.checkArgument(maxStepLength > 0);
         int numberOfSamples = 1 + (int) Math.ceil(route.length() / maxStepLength);
-        intervalLength = route.length() / (numberOfSamples - 1);
-        profile = new float[numberOfSamples];
+        double intervalLength = route.length() / (numberOfSamples - 1);
+        float[] samples = new float[numberOfSamples];
+        for (int sample = 0; sample < samples.length; sample++) {
+            samples[sample] = (float) route.elevationAt(sample * intervalLength);
+        }
+        return samples;
+    }
 
-        fillInitialArray(route);
-        int indexFirstNumber = firstNumberIndex();
+    /**
+     * Computes the elevation profile of the route made of the given consecutive segments, with maxStepLength,
+     * from the samples of every segment (as given by elevationSamples), without reading the profiles of
+     * the edges again: the elevations at the positions of the samples of the whole route are interpolated
+     * between the two closest samples of their segment, or NaN if one of them is NaN, and the missing values
+     * are then filled like in elevationProfile. The samples of a segment can thus be computed once and
+     * reused by all the routes going through this segment.
+     *
+     * @param segmentLengths : lengths of the segments, in order
+     * @param segmentSamples : samples of the segments, in the same order
+     * @param maxStepLength  : maximal distance between two samples from the profile
+     * @return a new Elevation Profile
+     * @throws IllegalArgumentException if maxStepLength <= 0, if there are no segments or if the lists
+     *                                  do not have the same size
+     */
+    public static ElevationProfile elevationProfile(List<Double> segmentLengths, List<float[]> segmentSamples,
+                                                    double maxStepLength) {
+        Preconditions.checkArgument(maxStepLength > 0);
+        Preconditions.checkArgument(!segmentLengths.isEmpty() && segmentLengths.size() == segmentSamples.size());
+        double length = 0;
+        for (double segmentLength : segmentLengths) {
+            length += segmentLength;
+        }
+        int numberOfSamples = 1 + (int) Math.ceil(length / maxStepLength);
+        double intervalLength = length / (numberOfSamples - 1);
+        float[] profile = new float[numberOfSamples];
 
-        if (indexFirstNumber == profile.length) {
-            Arrays.fill(profile, 0);
-        } else {
-            Arrays.fill(profile, 0, indexFirstNumber, profile[indexFirstNumber]);
-            int indexFirstNumberEnd = fillNanEnd();
-            fillIntermediateNanValues(indexFirstNumber, indexFirstNumberEnd);
+        // the positions of the samples only increase, so that the segments are simply walked through
+        int segment = 0;
+        double segmentStart = 0;
+        for (int sample = 0; sample < profile.length; sample++) {
+            double position = Math.min(sample * intervalLength, length);
+            while (segment < segmentLengths.size() - 1 && position >= segmentStart + segmentLengths.get(segment)) {
+                segmentStart += segmentLengths.get(segment);
+                segment++;
+            }
+            profile[sample] = sampleAt(segmentSamples.get(segment), segmentLengths.get(segment),
+                    position - segmentStart);
         }
 
-        return new ElevationProfile(route.length(), profile);
+        fillNanValues(profile);
+        return new ElevationProfile(length, profile);
     }
 
     /**
-     * Fill the array with the initial values from the route
+     * Returns the elevation at the given position of a segment, interpolated between its two closest samples
      *
-     * @param route : route of interest
+     * @param samples  : samples of the segment
+     * @param length   : length of the segment
+     * @param position : position on the segment
+     * @return the elevation, NaN if one of the two closest samples is NaN
      */
-    private static void fillInitialArray(Route route) {
-        for (int sample = 0; sample < profile.length; sample++) {
-            profile[sample] = (float) route.elevationAt(sample * intervalLength);
+    private static float sampleAt(float[] samples, double length, double position) {
+        if (samples.length == 1) return samples[0];
+
+        double index = Math2.clamp(0, position / length * (samples.length - 1), samples.length - 1);
+        int indexBefore = Math.min((int) index, samples.length - 2);
+        double proportion = index - indexBefore;
+        if (proportion == 0) return samples[indexBefore];
+        if (proportion == 1) return samples[indexBefore + 1];
+        return (float) Math2.interpolate(samples[indexBefore], samples[indexBefore + 1], proportion);
+    }
+
+    /**
+     * Fills the NaN values of the given samples: the ones before the first real number and after
+     * the last one with these numbers, and the others by interpolation, or with zeros if all are NaN
+     *
+     * @param profile : samples of the profile
+     */
+    private static void fillNanValues(float[] profile) {
+        int indexFirstNumber = firstNumberIndex(profile);
+
+        if (indexFirstNumber == profile.length) {
+            Arrays.fill(profile, 0);
+        } else {
+            Arrays.fill(profile, 0, indexFirstNumber, profile[indexFirstNumber]);
+            int indexFirstNumberEnd = fillNanEnd(profile);
+            fillIntermediateNanValues(profile, indexFirstNumber, indexFirstNumberEnd);
         }
     }
 
@@ -62,9 +138,10 @@ public final class ElevationProfileComputer {
     /**
      * returns the index of the first real number
      *
+     * @param profile : samples of the profile
      * @return the index
      */
-    private static int firstNumberIndex() {
+    private static int firstNumberIndex(float[] profile) {
         int indexFirstNumber = 0;
         while ((indexFirstNumber < profile.length && Float.isNaN(profile[indexFirstNumber]))) {
             indexFirstNumber++;
@@ -76,9 +153,10 @@ public final class ElevationProfileComputer {
     /**
      * Returns the index of the first real number starting from the end of the array
      *
+     * @param profile : samples of the profile
      * @return the index
      */
-    private static int fillNanEnd() {
+    private static int fillNanEnd(float[] profile) {
         int indexFirstNumberEnd = profile.length - 1;
         while (Float.isNaN(profile[indexFirstNumberEnd])) {
             indexFirstNumberEnd--;
@@ -91,10 +169,11 @@ public final class ElevationProfileComputer {
     /**
      * Fill the remaining NaN values in the array
      *
+     * @param profile             : samples of the profile
      * @param indexFirstNumber    : index where we start on the array
      * @param indexFirstNumberEnd : index where we stop on the array
      */
-    private static void fillIntermediateNanValues(int indexFirstNumber, int indexFirstNumberEnd) {
+    private static void fillIntermediateNanValues(float[] profile, int indexFirstNumber, int indexFirstNumberEnd) {
         int firstNanIndex = indexFirstNumber;
         int realNumberAfterIndex;
         int realNumberBeforeIndex;
@@ -0,0 +1,167 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+/**
+ * LandmarkTable
+ * Costs, for a fixed cost function, from a few landmark nodes to every node of the graph and from every node
+ * to the landmarks, built offline by LandmarkTableBuilder. By the triangle inequality, they give lower bounds
+ * of the cost between any two nodes, used by the ALT (A*, landmarks, triangle inequality) heuristic.
+ * <p>
+ * The costs of a node are stored contiguously: first the costs from every landmark to the node,
+ * then the costs from the node to every landmark (infinite if there is no route).
+ *
+ * @author David Farah (341017)
+ * @author Wesley Nana Davies(344592)
+ */
+public final class LandmarkTable {
+    /**
+     * Name of the file containing the table, stored next to the files of the graph
+     */
+    public static final String FILE_NAME = "landmarks.bin";
+    private static final int MAGIC_NUMBER = 0x4A564C4D; // "JVLM"
+    private static final int HEADER_INTS = 4;
+
+    private final int[] landmarkNodeIds;
+    private final FloatBuffer costs;
+
+
+    /**
+     * Constructor of the class which creates a table from the given landmarks and costs
+     *
+     * @param landmarkNodeIds : IDs of the landmark nodes
+     * @param costs           : costs from and to the landmarks, for every node
+     * @throws IllegalArgumentException if there is no landmark
+     */
+    LandmarkTable(int[] landmarkNodeIds, FloatBuffer costs) {
+        Preconditions.checkArgument(landmarkNodeIds.length > 0);
+        this.landmarkNodeIds = landmarkNodeIds.clone();
+        this.costs = costs;
+    }
+
+    /**
+     * Returns the landmark table of the given graph stored in the given file, which is memory-mapped
+     *
+     * @param file  : path of the file written by writeTo
+     * @param graph : graph of the table
+     * @return the landmark table
+     * @throws IOException              in the event of an input/output error
+     * @throws IllegalArgumentException if the file does not contain a table of the given graph
+     */
+    public static LandmarkTable loadFrom(Path file, Graph graph) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        Preconditions.checkArgument(buffer.getInt() == MAGIC_NUMBER
+                && buffer.getInt() == graph.nodeCount()
+                && buffer.getInt() == graph.edgeCount());
+        int[] landmarkNodeIds = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(landmarkNodeIds);
+
+        buffer.position((HEADER_INTS + landmarkNodeIds.length) * Integer.BYTES);
+        return new LandmarkTable(landmarkNodeIds, buffer.slice().asFloatBuffer());
+    }
+
+    /**
+     * Writes the table to the given file
+     *
+     * @param file  : path of the file
+     * @param graph : graph of the table
+     * @throws IOException in the event of an input/output error
+     */
+    public void writeTo(Path file, Graph graph) throws IOException {
+        try (OutputStream o = Files.newOutputStream(file);
+             DataOutputStream d = new DataOutputStream(new BufferedOutputStream(o, 1 << 16))) {
+            d.writeInt(MAGIC_NUMBER);
+            d.writeInt(graph.nodeCount());
+            d.writeInt(graph.edgeCount());
+            d.writeInt(landmarkNodeIds.length);
+            for (int landmarkNodeId : landmarkNodeIds) {
+                d.writeInt(landmarkNodeId);
+            }
+            for (int i = 0; i < costs.capacity(); i++) {
+                d.writeFloat(costs.get(i));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of landmarks
+     *
+     * @return the number of landmarks
+     */
+    public int landmarkCount() {
+        return landmarkNodeIds.length;
+    }
+
+    /**
+     * Returns the ID of the given landmark
+     *
+     * @param landmark : index of the landmark
+     * @return the ID of the landmark node
+     */
+    public int landmarkNodeId(int landmark) {
+        return landmarkNodeIds[landmark];
+    }
+
+    /**
+     * Returns the cost of the best route from the given landmark to the given node
+     *
+     * @param landmark : index of the landmark
+     * @param nodeId   : ID of the node
+     * @return the cost, infinite if there is no route
+     */
+    public float costFromLandmark(int landmark, int nodeId) {
+        return costs.get(2 * landmarkNodeIds.length * nodeId + landmark);
+    }
+
+    /**
+     * Returns the cost of the best route from the given node to the given landmark
+     *
+     * @param landmark : index of the landmark
+     * @param nodeId   : ID of the node
+     * @return the cost, infinite if there is no route
+     */
+    public float costToLandmark(int landmark, int nodeId) {
+        return costs.get(2 * landmarkNodeIds.length * nodeId + landmarkNodeIds.length + landmark);
+    }
+
+    /**
+     * Returns a lower bound of the cost of the best route between the given nodes, deduced from the triangle
+     * inequality with every landmark: d(from, to) >= d(L, to) - d(L, from) and d(from, to) >= d(from, L) - d(to, L)
+     *
+     * @param fromNodeId : ID of the node the route starts from
+     * @param toNodeId   : ID of the node the route arrives at
+     * @return the lower bound (at least 0)
+     */
+    public float lowerBound(int fromNodeId, int toNodeId) {
+        int landmarkCount = landmarkNodeIds.length;
+        int fromIndex = 2 * landmarkCount * fromNodeId;
+        int toIndex = 2 * landmarkCount * toNodeId;
+        float lowerBound = 0;
+
+        for (int landmark = 0; landmark < landmarkCount; landmark++) {
+            // a difference involving an infinite cost gives no information (NaN or infinite), it is ignored
+            float viaForward = costs.get(toIndex + landmark) - costs.get(fromIndex + landmark);
+            float viaBackward = costs.get(fromIndex + landmarkCount + landmark)
+                    - costs.get(toIndex + landmarkCount + landmark);
+            if (viaForward > lowerBound && viaForward != Float.POSITIVE_INFINITY) lowerBound = viaForward;
+            if (viaBackward > lowerBound && viaBackward != Float.POSITIVE_INFINITY) lowerBound = viaBackward;
+        }
+        return lowerBound;
+    }
+}
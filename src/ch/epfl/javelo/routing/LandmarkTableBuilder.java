@@ -0,0 +1,153 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.projection.SwissBounds;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+
+/**
+ * LandmarkTableBuilder
+ * Offline tool which chooses landmarks spread around the Swiss bounds and computes, with one forward and one
+ * backward Dijkstra search per landmark (in parallel), the costs from and to every node of the graph.
+ * <p>
+ * The landmarks are chosen by splitting the plane into angular sectors around the center of SwissBounds
+ * and taking, in each sector, the node which is the farthest from the center, since landmarks located
+ * "behind" the nodes give the best lower bounds.
+ *
+ * @author David Farah (341017)
+ * @author Wesley Nana Davies(344592)
+ */
+public final class LandmarkTableBuilder {
+    /**
+     * Default number of landmarks
+     */
+    public static final int DEFAULT_LANDMARK_COUNT = 16;
+
+    private LandmarkTableBuilder() {
+    }
+
+    /**
+     * Builds the landmark table of the given graph for the given cost function
+     *
+     * @param graph         : graph of the table
+     * @param costFunction  : cost function of the routes
+     * @param landmarkCount : number of landmarks
+     * @return the landmark table
+     * @throws IllegalArgumentException if the number of landmarks is not strictly positive
+     */
+    public static LandmarkTable build(Graph graph, CostFunction costFunction, int landmarkCount) {
+        Preconditions.checkArgument(landmarkCount > 0);
+        int[] landmarkNodeIds = chooseLandmarks(graph, landmarkCount);
+
+        float[][] costsFromLandmarks = new float[landmarkNodeIds.length][];
+        float[][] costsToLandmarks = new float[landmarkNodeIds.length][];
+        IntStream.range(0, 2 * landmarkNodeIds.length).parallel().forEach(i -> {
+            if (i % 2 == 0) costsFromLandmarks[i / 2] = costsFrom(graph, costFunction, landmarkNodeIds[i / 2], false);
+            else costsToLandmarks[i / 2] = costsFrom(graph, costFunction, landmarkNodeIds[i / 2], true);
+        });
+
+        FloatBuffer costs = FloatBuffer.allocate(2 * landmarkNodeIds.length * graph.nodeCount());
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+            for (float[] costsFromLandmark : costsFromLandmarks) costs.put(costsFromLandmark[nodeId]);
+            for (float[] costsToLandmark : costsToLandmarks) costs.put(costsToLandmark[nodeId]);
+        }
+        return new LandmarkTable(landmarkNodeIds, costs.rewind());
+    }
+
+    /**
+     * Builds the landmark table of the JaVelo graph stored in the directory given as first argument,
+     * for the CityBikeCF cost function, and writes it next to the graph files.
+     * The number of landmarks can be given as second argument.
+     *
+     * @param args : directory of the graph, and optionally the number of landmarks
+     * @throws IOException in the event of an input/output error
+     */
+    public static void main(String[] args) throws IOException {
+        Path basePath = Path.of(args.length > 0 ? args[0] : "javelo-data");
+        int landmarkCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_LANDMARK_COUNT;
+
+        Graph graph = Graph.loadFrom(basePath);
+        long t0 = System.nanoTime();
+        LandmarkTable table = build(graph, CachedCostFunction.of(graph, new CityBikeCF(graph)), landmarkCount);
+        System.out.printf("Table de %d points de repère construite en %d s\n",
+                table.landmarkCount(), (System.nanoTime() - t0) / 1_000_000_000);
+
+        table.writeTo(basePath.resolve(LandmarkTable.FILE_NAME), graph);
+    }
+
+    /**
+     * Returns the IDs of the landmarks: in each of the landmarkCount angular sectors around the center of
+     * SwissBounds, the node farthest from the center having both entering and leaving edges
+     * (sectors without any such node have no landmark)
+     *
+     * @param graph         : graph of the table
+     * @param landmarkCount : number of landmarks (angular sectors)
+     * @return the IDs of the landmarks
+     */
+    private static int[] chooseLandmarks(Graph graph, int landmarkCount) {
+        double centerE = SwissBounds.MIN_E + SwissBounds.WIDTH / 2;
+        double centerN = SwissBounds.MIN_N + SwissBounds.HEIGHT / 2;
+        int[] farthestNodeIds = new int[landmarkCount];
+        double[] farthestSquaredDistances = new double[landmarkCount];
+        Arrays.fill(farthestNodeIds, -1);
+
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+            if (graph.nodeOutDegree(nodeId) == 0 || graph.nodeInDegree(nodeId) == 0) continue;
+
+            // normalizing by the bounds so that the sectors are evenly spread along the border of Switzerland
+            double x = (graph.nodeE(nodeId) - centerE) / SwissBounds.WIDTH;
+            double y = (graph.nodeN(nodeId) - centerN) / SwissBounds.HEIGHT;
+            double angle = Math.atan2(y, x) + Math.PI;
+            int sector = Math.min(landmarkCount - 1, (int) (angle / (2 * Math.PI) * landmarkCount));
+            double squaredDistance = x * x + y * y;
+            if (squaredDistance > farthestSquaredDistances[sector]) {
+                farthestSquaredDistances[sector] = squaredDistance;
+                farthestNodeIds[sector] = nodeId;
+            }
+        }
+        int[] landmarkNodeIds = Arrays.stream(farthestNodeIds).filter(nodeId -> nodeId != -1).toArray();
+        Preconditions.checkArgument(landmarkNodeIds.length > 0);
+        return landmarkNodeIds;
+    }
+
+    /**
+     * Returns the costs of the best routes from the given node to every node of the graph
+     * (or from every node to the given node, if backward is true), computed with Dijkstra's algorithm
+     *
+     * @param graph        : graph of the table
+     * @param costFunction : cost function of the routes
+     * @param sourceNodeId : ID of the node the search starts from
+     * @param backward     : true iff the search follows the edges backward
+     * @return the costs, infinite for nodes without any route
+     */
+    private static float[] costsFrom(Graph graph, CostFunction costFunction, int sourceNodeId, boolean backward) {
+        float[] costs = new float[graph.nodeCount()];
+        Arrays.fill(costs, Float.POSITIVE_INFINITY);
+        BinaryHeapOpenSet nodesToExplore = new BinaryHeapOpenSet(graph.nodeCount());
+        costs[sourceNodeId] = 0;
+        nodesToExplore.add(sourceNodeId, 0);
+
+        while (!nodesToExplore.isEmpty()) {
+            int nodeId = nodesToExplore.remove();
+            int degree = backward ? graph.nodeInDegree(nodeId) : graph.nodeOutDegree(nodeId);
+            for (int i = 0; i < degree; i++) {
+                int edgeId = backward ? graph.nodeInEdgeId(nodeId, i) : graph.nodeOutEdgeId(nodeId, i);
+                int fromNodeId = backward ? graph.edgeSourceNodeId(edgeId) : nodeId;
+                int neighbourId = backward ? fromNodeId : graph.edgeTargetNodeId(edgeId);
+                float cost = costs[nodeId]
+                        + (float) (graph.edgeLength(edgeId) * costFunction.costFactor(fromNodeId, edgeId));
+                if (cost < costs[neighbourId]) {
+                    costs[neighbourId] = cost;
+                    nodesToExplore.add(neighbourId, cost);
+                }
+            }
+        }
+        return costs;
+    }
+}
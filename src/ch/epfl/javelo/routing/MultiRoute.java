@@ -18,6 +18,10 @@ import java.util.ListIterator;
 public final class MultiRoute implements Route {
     private final List<Route> segments;
     private final double routeLength;
+    // position of the start of every segment, followed by the length of the route
+    private final double[] segmentsPosition;
+    // index (as given by indexOfSegmentAt) of the first non-composite segment of every segment
+    private final int[] segmentsFirstIndex;
 
 
     /**
@@ -29,21 +33,39 @@ public final class MultiRoute implements Route {
     public MultiRoute(List<Route> segments) {
         Preconditions.checkArgument(!segments.isEmpty());
         this.segments = List.copyOf(segments);
-        routeLength = calculateLength();
+        segmentsPosition = buildSegmentsPosition();
+        segmentsFirstIndex = buildSegmentsFirstIndex();
+        routeLength = segmentsPosition[this.segments.size()];
     }
 
 
     /**
-     * Returns the length of the MultiRoute
+     * Returns the position of the start of every segment, followed by the length of the MultiRoute,
+     * used to find the segment at a given position by dichotomous search
      *
-     * @return length of the MultiRoute
+     * @return the positions (meters)
      */
-    private double calculateLength() {
-        double length = 0;
-        for (Route segment : segments) {
-            length += segment.length();
+    private double[] buildSegmentsPosition() {
+        double[] positions = new double[segments.size() + 1];
+        for (int i = 0; i < segments.size(); i++) {
+            positions[i + 1] = positions[i] + segments.get(i).length();
+        }
+        return positions;
+    }
+
+
+    /**
+     * Returns the index of the first non-composite segment of every segment
+     *
+     * @return the indexes
+     */
+    private int[] buildSegmentsFirstIndex() {
+        int[] indexes = new int[segments.size()];
+        for (int i = 1; i < segments.size(); i++) {
+            Route previous = segments.get(i - 1);
+            indexes[i] = indexes[i - 1] + previous.indexOfSegmentAt(previous.length()) + 1;
         }
-        return length;
+        return indexes;
     }
 
 
@@ -57,40 +79,33 @@ public final class MultiRoute implements Route {
     @Override
     public int indexOfSegmentAt(double position) {
         position = Math2.clamp(0, position, routeLength);
-
-        int segmentIndex = 0;
         int globalIndex = globalIndexOfSegmentAt(position);
-        int previousLength = 0;
-
-        for (Route route : segments.subList(0, globalIndex)) {
-            previousLength += route.length();
-            segmentIndex += route.indexOfSegmentAt(route.length()) + 1;
-        }
-
-        segmentIndex += segments.get(globalIndex).indexOfSegmentAt(position - previousLength);
-
-        return segmentIndex;
+        return segmentsFirstIndex[globalIndex]
+                + segments.get(globalIndex).indexOfSegmentAt(position - segmentsPosition[globalIndex]);
     }
 
 
     /**
      * Returns the global index of the segment of the MultiRoute
-     * at the given position (first layer)
+     * at the given position (first layer), i.e. of the first segment ending after it,
+     * found by dichotomous search among the positions of the segments
      *
      * @param position : position from the start of the itinerary (in meters)
      * @return the global index at the given position
      */
     private int globalIndexOfSegmentAt(double position) {
-        if (position == routeLength) return segments.size() - 1;
-
-        int segmentIndex = 0;
-        for (Route segment : segments) {
-            if (position >= segment.length()) {
-                position -= segment.length();
-                segmentIndex++;
-            } else break;
+        // number of segments ending at or before the position (empty segments are thus skipped)
+        int low = 0;
+        int high = segments.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (segmentsPosition[middle + 1] <= position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
         }
-        return segmentIndex;
+        return Math.min(low, segments.size() - 1);
     }
 
 
@@ -146,21 +161,6 @@ public final class MultiRoute implements Route {
         return points;
     }
 
-    /**
-     * Returns the length of the route up until the specified route index (exclusive)
-     *
-     * @param index index of the route to know the distance before
-     * @return the length of the route up until the given index (exclusive)
-     */
-    private double lengthBeforeRoute(int index) {
-        double length = 0;
-        for (Route route : segments.subList(0, index)) {
-            length += route.length();
-        }
-        return length;
-    }
-
-
     /**
      * Returns the point at the given position along the route
      *
@@ -171,7 +171,7 @@ public final class MultiRoute implements Route {
     public PointCh pointAt(double position) {
         position = Math2.clamp(0, position, routeLength);
         int routeIndex = globalIndexOfSegmentAt(position);
-        return segments.get(routeIndex).pointAt(position - lengthBeforeRoute(routeIndex));
+        return segments.get(routeIndex).pointAt(position - segmentsPosition[routeIndex]);
     }
 
 
@@ -185,7 +185,7 @@ public final class MultiRoute implements Route {
     public double elevationAt(double position) {
         position = Math2.clamp(0, position, routeLength);
         int routeIndex = globalIndexOfSegmentAt(position);
-        return segments.get(routeIndex).elevationAt(position - lengthBeforeRoute(routeIndex));
+        return segments.get(routeIndex).elevationAt(position - segmentsPosition[routeIndex]);
     }
 
 
@@ -199,7 +199,7 @@ public final class MultiRoute implements Route {
     public int nodeClosestTo(double position) {
         position = Math2.clamp(0, position, routeLength);
         int routeIndex = globalIndexOfSegmentAt(position);
-        return segments.get(routeIndex).nodeClosestTo(position - lengthBeforeRoute(routeIndex));
+        return segments.get(routeIndex).nodeClosestTo(position - segmentsPosition[routeIndex]);
     }
 
 
@@ -217,7 +217,7 @@ public final class MultiRoute implements Route {
         for (int index = 0; index < segments.size(); index++) {
             currentPoint = segments.get(index).
                     pointClosestTo(point).
-                    withPositionShiftedBy(lengthBeforeRoute(index));
+                    withPositionShiftedBy(segmentsPosition[index]);
 
             closestPoint = closestPoint.min(currentPoint);
         }
@@ -0,0 +1,121 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+
+import java.util.Arrays;
+
+
+/**
+ * Dijkstra search from one node to several target nodes, which only computes the costs and lengths
+ * of the best routes (no route is built) and stops as soon as every target has been reached.
+ * Like the searches of RouteComputer, it is used by a single thread at a time and its distances are
+ * stamped with a generation number, so that a new search does not need to reset them.
+ *
+ * @author David Farah (341017)
+ * @author Wesley Nana Davies(344592)
+ */
+final class OneToManySearch {
+    private final Graph graph;
+    private final CostFunction costFunction;
+    private final BinaryHeapOpenSet nodesToExplore;
+    private final float[] nodesDistanceToOrigin;
+    private final float[] nodesLengthToOrigin;
+    private final int[] originGenerations;
+    private final int[] targetGenerations;
+    private int generation;
+
+
+    /**
+     * Constructor of the class which allocates the arrays of the search
+     *
+     * @param graph        : graph used for the routes
+     * @param costFunction : cost function of the routes
+     */
+    OneToManySearch(Graph graph, CostFunction costFunction) {
+        this.graph = graph;
+        this.costFunction = costFunction;
+        int nodeCount = graph.nodeCount();
+        nodesToExplore = new BinaryHeapOpenSet(nodeCount);
+        nodesDistanceToOrigin = new float[nodeCount];
+        nodesLengthToOrigin = new float[nodeCount];
+        originGenerations = new int[nodeCount];
+        targetGenerations = new int[nodeCount];
+    }
+
+    /**
+     * Computes the costs and lengths of the best routes from the given source node to every given target node,
+     * and stores them in the given arrays from the given index on, in the order of the targets
+     *
+     * @param sourceNodeId  : ID of the node the routes start from
+     * @param targetNodeIds : IDs of the nodes the routes arrive at
+     * @param costs         : array receiving the costs, infinite if there is no route
+     * @param lengths       : array receiving the lengths (in meters), infinite if there is no route
+     * @param offset        : index of the arrays where the values of the first target are stored
+     */
+    void computeFrom(int sourceNodeId, int[] targetNodeIds, float[] costs, float[] lengths, int offset) {
+        nextGeneration();
+        int remainingTargets = 0;
+        for (int targetNodeId : targetNodeIds) {
+            if (targetGenerations[targetNodeId] != generation) {
+                targetGenerations[targetNodeId] = generation;
+                remainingTargets += 1;
+            }
+        }
+
+        nodesDistanceToOrigin[sourceNodeId] = 0;
+        nodesLengthToOrigin[sourceNodeId] = 0;
+        originGenerations[sourceNodeId] = generation;
+        nodesToExplore.add(sourceNodeId, 0);
+
+        while (remainingTargets > 0 && !nodesToExplore.isEmpty()) {
+            int nodeId = nodesToExplore.remove();
+            if (targetGenerations[nodeId] == generation) remainingTargets -= 1;
+
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int toNodeId = graph.edgeTargetNodeId(edgeId);
+                float distance = nodesDistanceToOrigin[nodeId]
+                        + (float) (graph.edgeLength(edgeId) * costFunction.costFactor(nodeId, edgeId));
+
+                if (distance < distanceToOrigin(toNodeId)) {
+                    nodesDistanceToOrigin[toNodeId] = distance;
+                    nodesLengthToOrigin[toNodeId] = nodesLengthToOrigin[nodeId] + (float) graph.edgeLength(edgeId);
+                    originGenerations[toNodeId] = generation;
+                    nodesToExplore.add(toNodeId, distance);
+                }
+            }
+        }
+        nodesToExplore.clear();
+
+        for (int j = 0; j < targetNodeIds.length; j++) {
+            boolean reached = originGenerations[targetNodeIds[j]] == generation;
+            costs[offset + j] = distanceToOrigin(targetNodeIds[j]);
+            lengths[offset + j] = reached ? nodesLengthToOrigin[targetNodeIds[j]] : Float.POSITIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Starts a new generation, which invalidates the distances and targets of the previous searches,
+     * and empties the open set, which a search interrupted by an exception may have left non-empty
+     */
+    private void nextGeneration() {
+        nodesToExplore.clear();
+        generation += 1;
+        if (generation == 0) {
+            Arrays.fill(originGenerations, 0);
+            Arrays.fill(targetGenerations, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Returns the distance of the best route found so far from the source node to the given node
+     *
+     * @param nodeId : ID of the node
+     * @return the distance, infinite if the node has not been reached yet
+     */
+    private float distanceToOrigin(int nodeId) {
+        return originGenerations[nodeId] == generation ?
+                nodesDistanceToOrigin[nodeId] : Float.POSITIVE_INFINITY;
+    }
+}
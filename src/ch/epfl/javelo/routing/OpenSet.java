@@ -0,0 +1,49 @@
+package ch.epfl.javelo.routing;
+
+/**
+ * Set of the nodes which are still to be explored by the RouteComputer,
+ * ordered by their priority (distance from the origin plus estimated distance to the destination).
+ *
+ * @author David Farah (341017)
+ * @author Wesley Nana Davies(344592)
+ */
+interface OpenSet {
+
+    /**
+     * Adds the given node to the set with the given priority, or lowers its priority
+     * if the node is already in the set.
+     *
+     * @param nodeId   : ID of the node
+     * @param priority : priority of the node (the smallest is removed first)
+     */
+    void add(int nodeId, float priority);
+
+    /**
+     * Removes the node with the smallest priority from the set and returns its ID.
+     * Implementations which do not support decreasing priorities may return a node
+     * which has already been removed before (stale entry).
+     *
+     * @return the ID of the node
+     */
+    int remove();
+
+    /**
+     * Returns the smallest priority of the set, which is a lower bound of the priority of the next node
+     * removed (it may be the priority of a stale entry)
+     *
+     * @return the smallest priority
+     */
+    float peekPriority();
+
+    /**
+     * Returns true iff the set contains no node
+     *
+     * @return <code>true</code> or <code>false</code>
+     */
+    boolean isEmpty();
+
+    /**
+     * Removes all the nodes from the set
+     */
+    void clear();
+}
@@ -0,0 +1,52 @@
+package ch.epfl.javelo.routing;
+
+import java.util.PriorityQueue;
+
+
+/**
+ * Open set backed by a java.util.PriorityQueue of weighted nodes.
+ * A new entry is added each time the priority of a node decreases,
+ * the previous ones are left in the queue (lazy deletion).
+ *
+ * @author David Farah (341017)
+ * @author Wesley Nana Davies(344592)
+ */
+final class PriorityQueueOpenSet implements OpenSet {
+    private final PriorityQueue<WeightedNode> nodes = new PriorityQueue<>();
+
+    @Override
+    public void add(int nodeId, float priority) {
+        nodes.add(new WeightedNode(nodeId, priority));
+    }
+
+    @Override
+    public int remove() {
+        return nodes.remove().nodeId;
+    }
+
+    @Override
+    public float peekPriority() {
+        return nodes.element().priority;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        nodes.clear();
+    }
+
+    /**
+     * Inner record to represent a node, implementing the comparable interface
+     * to let the PriorityQueue know which element is the smallest in the queue.
+     */
+    private record WeightedNode(int nodeId, float priority) implements Comparable<WeightedNode> {
+        @Override
+        public int compareTo(WeightedNode that) {
+            return Float.compare(this.priority, that.priority);
+        }
+    }
+}
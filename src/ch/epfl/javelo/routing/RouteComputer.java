@@ -1,41 +1,160 @@
 package ch.epfl.javelo.routing;
 
+import ch.epfl.javelo.Math2;
 import ch.epfl.javelo.Preconditions;
 import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.projection.PointCh;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.stream.IntStream;
 
 
 /**
  * RouteComputer
+ * <p>
+ * A RouteComputer can be shared by several threads: bestRouteBetween may be called concurrently,
+ * since the graph, cost function, hierarchy and landmark table are only read, and each search runs in its own
+ * search context. Contexts are borrowed from a pool bounded by MAX_SEARCH_CONTEXTS, created when needed
+ * and reused by the following searches; a search waits if all of them are in use.
+ * The cost function must therefore be safe to call from several threads (CityBikeCF is).
  *
  * @author David Farah (341017)
  * @author Wesley Nana Davies(344592)
  */
 public final class RouteComputer {
+    /**
+     * Maximum number of searches running at the same time, i.e. of search contexts
+     */
+    public static final int MAX_SEARCH_CONTEXTS = Runtime.getRuntime().availableProcessors();
+
     private final Graph graph;
     private final CostFunction costFunction;
-    private final PriorityQueue<WeightedNode> nodesToExplore;
-    private final float[] nodesDistanceToOrigin;
-    private final int[] predecessors;
-    private int nodeChosenId;
+    private final SearchMode searchMode;
+    private final ContractionHierarchy hierarchy;
+    private final LandmarkTable landmarks;
+    private final QueueType queueType;
+    private final Semaphore availableSearchContexts;
+    private final Queue<SearchContext> idleSearchContexts;
 
 
     /**
-     * Constructor of the class which creates a RouteComputer with the given graph and cost function.
+     * Constructor of the class which creates a RouteComputer with the given graph and cost function,
+     * exploring the nodes with a binary heap.
      *
      * @param graph        : graph used for the route
      * @param costFunction : cost function of the route
      */
     public RouteComputer(Graph graph, CostFunction costFunction) {
+        this(graph, costFunction, QueueType.BINARY_HEAP);
+    }
+
+    /**
+     * Constructor of the class which creates a RouteComputer with the given graph and cost function,
+     * exploring the nodes with the given type of queue.
+     *
+     * @param graph        : graph used for the route
+     * @param costFunction : cost function of the route
+     * @param queueType    : type of the queue containing the nodes to explore
+     */
+    public RouteComputer(Graph graph, CostFunction costFunction, QueueType queueType) {
+        this(graph, costFunction, queueType, SearchMode.UNIDIRECTIONAL);
+    }
+
+    /**
+     * Constructor of the class which creates a RouteComputer with the given graph and cost function,
+     * exploring the nodes with the given type of queue and search mode.
+     *
+     * @param graph        : graph used for the route
+     * @param costFunction : cost function of the route
+     * @param queueType    : type of the queue containing the nodes to explore
+     * @param searchMode   : direction(s) in which the graph is explored
+     */
+    public RouteComputer(Graph graph, CostFunction costFunction, QueueType queueType, SearchMode searchMode) {
+        this(graph, costFunction, queueType, searchMode, null, null);
+    }
+
+    /**
+     * Constructor of the class which creates a RouteComputer with the given graph and cost function,
+     * exploring the nodes with a binary heap and the ALT heuristic given by the landmark table,
+     * which must have been built for the same graph and cost function.
+     *
+     * @param graph        : graph used for the route
+     * @param costFunction : cost function of the route
+     * @param landmarks    : landmark table of the graph for the cost function
+     */
+    public RouteComputer(Graph graph, CostFunction costFunction, LandmarkTable landmarks) {
+        this(graph, costFunction, QueueType.BINARY_HEAP, SearchMode.UNIDIRECTIONAL, landmarks);
+    }
+
+    /**
+     * Constructor of the class which creates a RouteComputer with the given graph and cost function,
+     * exploring the nodes with the given type of queue, search mode and the ALT heuristic given by
+     * the landmark table (if it is not null).
+     *
+     * @param graph        : graph used for the route
+     * @param costFunction : cost function of the route
+     * @param queueType    : type of the queue containing the nodes to explore
+     * @param searchMode   : direction(s) in which the graph is explored
+     * @param landmarks    : landmark table of the graph for the cost function, or null
+     */
+    public RouteComputer(Graph graph, CostFunction costFunction, QueueType queueType, SearchMode searchMode,
+                         LandmarkTable landmarks) {
+        this(graph, costFunction, queueType, searchMode, null, landmarks);
+    }
+
+    /**
+     * Constructor of the class which creates a RouteComputer with the given graph and cost function,
+     * computing routes with the given contraction hierarchy, which must have been built for the same
+     * graph and cost function.
+     *
+     * @param graph        : graph used for the route
+     * @param costFunction : cost function of the route
+     * @param hierarchy    : contraction hierarchy of the graph for the cost function
+     */
+    public RouteComputer(Graph graph, CostFunction costFunction, ContractionHierarchy hierarchy) {
+        this(graph, costFunction, QueueType.BINARY_HEAP, SearchMode.UNIDIRECTIONAL, hierarchy, null);
+    }
+
+    /**
+     * Constructor of the class which creates a RouteComputer with all the given parameters
+     *
+     * @param graph        : graph used for the route
+     * @param costFunction : cost function of the route
+     * @param queueType    : type of the queue containing the nodes to explore
+     * @param searchMode   : direction(s) in which the graph is explored
+     * @param hierarchy    : contraction hierarchy used to compute routes, or null to explore the graph
+     * @param landmarks    : landmark table used by the heuristic, or null
+     */
+    private RouteComputer(Graph graph, CostFunction costFunction, QueueType queueType, SearchMode searchMode,
+                          ContractionHierarchy hierarchy, LandmarkTable landmarks) {
         this.graph = graph;
-        nodesDistanceToOrigin = new float[graph.nodeCount()];
-        predecessors = new int[graph.nodeCount()];
-        nodesToExplore = new PriorityQueue<>();
         this.costFunction = costFunction;
+        this.searchMode = searchMode;
+        this.hierarchy = hierarchy;
+        this.landmarks = landmarks;
+        this.queueType = queueType;
+        availableSearchContexts = new Semaphore(MAX_SEARCH_CONTEXTS);
+        idleSearchContexts = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Returns a new, empty open set of the given type
+     *
+     * @param queueType : type of the queue
+     * @param nodeCount : number of nodes of the graph
+     * @return the open set
+     */
+    private static OpenSet newOpenSet(QueueType queueType, int nodeCount) {
+        return switch (queueType) {
+            case BINARY_HEAP -> new BinaryHeapOpenSet(nodeCount);
+            case PRIORITY_QUEUE -> new PriorityQueueOpenSet();
+        };
     }
 
 
@@ -47,6 +166,19 @@ public final class RouteComputer {
      * @return a route
      */
     public Route bestRouteBetween(int startNodeId, int endNodeId) {
+        RoutePath path = bestPathBetween(startNodeId, endNodeId);
+        return path == null ? null : path.toRoute();
+    }
+
+    /**
+     * Computes the shortest path between the given nodes, like bestRouteBetween, but only returns
+     * the IDs of its edges, its cost, length and ascent, without building the route
+     *
+     * @param startNodeId : ID of the initial node
+     * @param endNodeId   : ID of the final node
+     * @return a path, or null if there is none
+     */
+    public RoutePath bestPathBetween(int startNodeId, int endNodeId) {
         Preconditions.checkArgument(startNodeId != endNodeId);
 
         boolean value = true;
@@ -57,128 +189,817 @@ public final class RouteComputer {
         }
         if (value) return null;
 
-        Arrays.fill(nodesDistanceToOrigin, Float.POSITIVE_INFINITY);
-        nodesDistanceToOrigin[startNodeId] = 0;
+        SearchContext context = acquireSearchContext();
+        try {
+            return context.bestPathBetween(startNodeId, endNodeId);
+        } finally {
+            releaseSearchContext(context);
+        }
+    }
 
-        nodesToExplore.add(new WeightedNode(startNodeId, nodesDistanceToOrigin[startNodeId],
-                (float) graph.nodePoint(startNodeId).distanceTo(graph.nodePoint(endNodeId))));
 
+    /**
+     * Computes the shortest route between the given positions on edges of the graph, which starts and ends
+     * in the middle of these edges instead of at their nodes. The route may leave the start edge in both
+     * directions (along the edge going the other way between the same nodes, if there is one) and
+     * arrive on the end edge from both of its nodes.
+     * The route is composed of the edges of the path between the nodes, preceded and followed by the parts
+     * of the start and end edges, whose points are interpolated on the edges (as for the points of a route)
+     * and whose profiles are the corresponding parts of the profiles of the edges.
+     *
+     * @param start : position on the edge the route starts from
+     * @param end   : position on the edge the route arrives at
+     * @return a route, or null if there is none
+     * @throws IllegalArgumentException if both positions are at the same point (see areAtSamePoint)
+     */
+    public Route bestRouteBetween(Graph.EdgePosition start, Graph.EdgePosition end) {
+        Preconditions.checkArgument(!areAtSamePoint(start, end));
+
+        int startEdgeId = start.edgeId();
+        int startFromNodeId = graph.edgeSourceNodeId(startEdgeId);
+        int startToNodeId = graph.edgeTargetNodeId(startEdgeId);
+        int startTwinEdgeId = twinEdgeId(startEdgeId, startFromNodeId, startToNodeId);
+        double startProportion = proportionOf(start);
+        List<PartialEdge> starts = new ArrayList<>(2);
+        addIfAccessible(starts, partialEdge(startEdgeId, startFromNodeId, startToNodeId, startProportion, 1));
+        if (startTwinEdgeId != -1) {
+            addIfAccessible(starts,
+                    partialEdge(startTwinEdgeId, startToNodeId, startFromNodeId, 1 - startProportion, 1));
+        }
 
-        while (!nodesToExplore.isEmpty()) {
-            nodeChosenId = chooseNode().nodeId;
+        int endEdgeId = end.edgeId();
+        int endFromNodeId = graph.edgeSourceNodeId(endEdgeId);
+        int endToNodeId = graph.edgeTargetNodeId(endEdgeId);
+        int endTwinEdgeId = twinEdgeId(endEdgeId, endFromNodeId, endToNodeId);
+        double endProportion = proportionOf(end);
+        List<PartialEdge> ends = new ArrayList<>(2);
+        addIfAccessible(ends, partialEdge(endEdgeId, endFromNodeId, endToNodeId, 0, endProportion));
+        if (endTwinEdgeId != -1) {
+            addIfAccessible(ends, partialEdge(endTwinEdgeId, endToNodeId, endFromNodeId, 0, 1 - endProportion));
+        }
 
-            if (nodeChosenId == endNodeId) {
-                List<Edge> edges = reconstructRoute(startNodeId, endNodeId);
-                nodesToExplore.clear();
-                return new SingleRoute(edges);
+        // both positions on the same road: the route may simply go along it, in one direction or the other
+        PartialEdge direct = null;
+        if (endEdgeId == startEdgeId || (startTwinEdgeId != -1 && endEdgeId == startTwinEdgeId)) {
+            double endStartProportion = endEdgeId == startEdgeId ? endProportion : 1 - endProportion;
+            if (endStartProportion >= startProportion) {
+                direct = partialEdge(startEdgeId, startFromNodeId, startToNodeId,
+                        startProportion, endStartProportion);
+            } else if (startTwinEdgeId != -1) {
+                direct = partialEdge(startTwinEdgeId, startToNodeId, startFromNodeId,
+                        1 - startProportion, 1 - endStartProportion);
             }
+        }
+        double directCost = direct == null ? Double.POSITIVE_INFINITY : direct.cost();
+
+        PointCh endPoint = Edge.of(graph, endEdgeId, endFromNodeId, endToNodeId).pointAt(end.position());
+        EdgePath path;
+        SearchContext context = acquireSearchContext();
+        try {
+            path = context.bestEdgePathBetween(starts, ends, endPoint.e(), endPoint.n(), directCost);
+        } finally {
+            releaseSearchContext(context);
+        }
 
-            addNodesToExplore(endNodeId);
-            nodesDistanceToOrigin[nodeChosenId] = Float.NEGATIVE_INFINITY;
+        List<Edge> edges = new ArrayList<>();
+        if (path == null) {
+            if (direct == null || direct.cost() == Double.POSITIVE_INFINITY) return null;
+            addPartialEdge(edges, direct);
+        } else {
+            addPartialEdge(edges, starts.get(path.startIndex()));
+            int fromNodeId = starts.get(path.startIndex()).toNodeId();
+            for (int edgeId : path.edgeIds()) {
+                int toNodeId = graph.edgeTargetNodeId(edgeId);
+                edges.add(Edge.of(graph, edgeId, fromNodeId, toNodeId));
+                fromNodeId = toNodeId;
+            }
+            addPartialEdge(edges, ends.get(path.endIndex()));
         }
-        return null;
+        return new SingleRoute(edges);
     }
 
+    /**
+     * Returns true iff the given positions are at the same point of the graph, so that the route between them
+     * would be empty: the same position on the same edge, the same position on an edge and on the edge going
+     * the other way between the same nodes, or the same node at an end of their edges (e.g. the end of an edge
+     * and the start of the next one)
+     *
+     * @param position1 : position on an edge
+     * @param position2 : position on an edge
+     * @return true iff the positions are at the same point
+     */
+    public boolean areAtSamePoint(Graph.EdgePosition position1, Graph.EdgePosition position2) {
+        if (position1.equals(position2)) return true;
+
+        int nodeId1 = nodeIdAt(position1);
+        if (nodeId1 != -1 && nodeId1 == nodeIdAt(position2)) return true;
+
+        int edgeId1 = position1.edgeId();
+        return position2.edgeId() == twinEdgeId(edgeId1, graph.edgeSourceNodeId(edgeId1),
+                graph.edgeTargetNodeId(edgeId1)) && 1 - proportionOf(position2) == proportionOf(position1);
+    }
 
     /**
-     * Adds weighted nodes to the nodesToExplore list which are connected to the nodeChosen
-     * (if the distance computed is smaller than the one stored in the array).
+     * Returns the ID of the node at which the given position is, if it is at an end of its edge
      *
-     * @param endNodeId : ID of the node at the end of the route
+     * @param edgePosition : position on an edge
+     * @return the ID of the node, or -1 if the position is strictly inside its edge
      */
-    private void addNodesToExplore(int endNodeId) {
-        int currentEdgeId;
-        int edgeEndNodeId;
-        float nodeDistanceToOrigin;
+    private int nodeIdAt(Graph.EdgePosition edgePosition) {
+        double proportion = proportionOf(edgePosition);
+        if (proportion == 0) return graph.edgeSourceNodeId(edgePosition.edgeId());
+        if (proportion == 1) return graph.edgeTargetNodeId(edgePosition.edgeId());
+        return -1;
+    }
 
-        for (int i = 0; i < graph.nodeOutDegree(nodeChosenId); i++) {
+    /**
+     * Returns the proportion of the length of its edge at which the given position is
+     *
+     * @param edgePosition : position on an edge
+     * @return the proportion, between 0 and 1
+     */
+    private double proportionOf(Graph.EdgePosition edgePosition) {
+        double edgeLength = graph.edgeLength(edgePosition.edgeId());
+        return edgeLength == 0 ? 0 : Math2.clamp(0, edgePosition.position() / edgeLength, 1);
+    }
+
+    /**
+     * Returns the ID of the edge going from the given target node to the given source node, i.e. the other
+     * direction of the given edge, or -1 if there is none. If there are several, the one whose length is
+     * closest to the length of the given edge is returned.
+     *
+     * @param edgeId     : ID of the edge
+     * @param fromNodeId : ID of the node the edge leaves from
+     * @param toNodeId   : ID of the node the edge arrives at
+     * @return the ID of the edge in the other direction, or -1
+     */
+    private int twinEdgeId(int edgeId, int fromNodeId, int toNodeId) {
+        int twinEdgeId = -1;
+        double smallestLengthDifference = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < graph.nodeOutDegree(toNodeId); i++) {
+            int candidateEdgeId = graph.nodeOutEdgeId(toNodeId, i);
+            double lengthDifference = Math.abs(graph.edgeLength(candidateEdgeId) - graph.edgeLength(edgeId));
+            if (candidateEdgeId != edgeId && graph.edgeTargetNodeId(candidateEdgeId) == fromNodeId
+                    && lengthDifference < smallestLengthDifference) {
+                twinEdgeId = candidateEdgeId;
+                smallestLengthDifference = lengthDifference;
+            }
+        }
+        return twinEdgeId;
+    }
 
-            currentEdgeId = graph.nodeOutEdgeId(nodeChosenId, i);
-            edgeEndNodeId = graph.edgeTargetNodeId(currentEdgeId);
+    /**
+     * Returns the part of the given edge between the given proportions of its length, and its cost
+     *
+     * @param edgeId         : ID of the edge
+     * @param fromNodeId     : ID of the node the edge leaves from
+     * @param toNodeId       : ID of the node the edge arrives at
+     * @param fromProportion : proportion of the length of the edge at which the part starts
+     * @param toProportion   : proportion of the length of the edge at which the part ends
+     * @return the part of the edge
+     */
+    private PartialEdge partialEdge(int edgeId, int fromNodeId, int toNodeId,
+                                    double fromProportion, double toProportion) {
+        double edgeLength = graph.edgeLength(edgeId);
+        double length = (toProportion - fromProportion) * edgeLength;
+        // an empty part is free even on an inaccessible edge, since the route is then at its node
+        double cost = length == 0 ? 0 : length * costFunction.costFactor(fromNodeId, edgeId);
+        return new PartialEdge(edgeId, fromNodeId, toNodeId,
+                fromProportion * edgeLength, toProportion * edgeLength, cost);
+    }
 
-            nodeDistanceToOrigin = nodesDistanceToOrigin[nodeChosenId]
-                    + (float) (graph.edgeLength(currentEdgeId)
-                    * costFunction.costFactor(nodeChosenId, currentEdgeId));
+    /**
+     * Adds the given part of an edge to the given list if it can be used, i.e. if its cost is finite
+     *
+     * @param partialEdges : list of parts of edges
+     * @param partialEdge  : part of an edge
+     */
+    private static void addIfAccessible(List<PartialEdge> partialEdges, PartialEdge partialEdge) {
+        if (partialEdge.cost() != Double.POSITIVE_INFINITY) partialEdges.add(partialEdge);
+    }
 
+    /**
+     * Adds to the given list of edges of a route the given part of an edge, unless it is empty
+     *
+     * @param edges       : edges of the route
+     * @param partialEdge : part of an edge
+     */
+    private void addPartialEdge(List<Edge> edges, PartialEdge partialEdge) {
+        double fromPosition = partialEdge.fromPosition();
+        double length = partialEdge.toPosition() - fromPosition;
+        if (length <= 0) return;
+
+        Edge edge = Edge.of(graph, partialEdge.edgeId(), partialEdge.fromNodeId(), partialEdge.toNodeId());
+        edges.add(new Edge(edge.fromNodeId(), edge.toNodeId(), edge.pointAt(fromPosition),
+                edge.pointAt(partialEdge.toPosition()), length,
+                position -> edge.elevationAt(fromPosition + position)));
+    }
 
-            if (nodeDistanceToOrigin < nodesDistanceToOrigin[edgeEndNodeId]) {
-                predecessors[edgeEndNodeId] = nodeChosenId;
-                nodesDistanceToOrigin[edgeEndNodeId] = nodeDistanceToOrigin;
+    /**
+     * Computes the costs and lengths of the best routes from every given source node to every given target node,
+     * without building the routes, with one Dijkstra search per source. The searches of the different sources
+     * run in parallel in the common fork-join pool.
+     *
+     * @param sourceNodeIds : IDs of the nodes the routes start from
+     * @param targetNodeIds : IDs of the nodes the routes arrive at
+     * @return the matrix of the costs and lengths, infinite for pairs of nodes without any route
+     */
+    public RouteMatrix routeMatrix(int[] sourceNodeIds, int[] targetNodeIds) {
+        return routeMatrix(sourceNodeIds, targetNodeIds, ForkJoinPool.commonPool());
+    }
 
-                nodesToExplore.add(
-                        new WeightedNode(
-                                edgeEndNodeId,
-                                nodeDistanceToOrigin,
-                                (float) graph.
-                                        nodePoint(edgeEndNodeId).
-                                        distanceTo(graph.nodePoint(endNodeId))
-                        )
-                );
+    /**
+     * Computes the costs and lengths of the best routes from every given source node to every given target node,
+     * like routeMatrix(sourceNodeIds, targetNodeIds), the searches of the different sources running in parallel
+     * in the given fork-join pool
+     *
+     * @param sourceNodeIds : IDs of the nodes the routes start from
+     * @param targetNodeIds : IDs of the nodes the routes arrive at
+     * @param pool          : pool in which the searches run
+     * @return the matrix of the costs and lengths, infinite for pairs of nodes without any route
+     */
+    public RouteMatrix routeMatrix(int[] sourceNodeIds, int[] targetNodeIds, ForkJoinPool pool) {
+        int targetCount = targetNodeIds.length;
+        float[] costs = new float[sourceNodeIds.length * targetCount];
+        float[] lengths = new float[costs.length];
+
+        pool.submit(() -> IntStream.range(0, sourceNodeIds.length).parallel().forEach(source -> {
+            SearchContext context = acquireSearchContext();
+            try {
+                context.oneToManySearch()
+                        .computeFrom(sourceNodeIds[source], targetNodeIds, costs, lengths, source * targetCount);
+            } finally {
+                releaseSearchContext(context);
             }
-        }
+        })).join();
+
+        return new RouteMatrix(sourceNodeIds, targetNodeIds, costs, lengths);
     }
 
 
     /**
-     * Returns the weighted node which distance from the start node and end node is smallest
-     * (ignores weighted nodes already explored)
+     * Returns an idle search context, creating one if there is none, after waiting
+     * until less than MAX_SEARCH_CONTEXTS contexts are in use
      *
-     * @return the weighted node
+     * @return the search context
      */
-    private WeightedNode chooseNode() {
-        WeightedNode nodeChosen;
-        do {
-            nodeChosen = nodesToExplore.remove();
-        } while (nodesDistanceToOrigin[nodeChosen.nodeId] == Float.NEGATIVE_INFINITY);
+    private SearchContext acquireSearchContext() {
+        availableSearchContexts.acquireUninterruptibly();
+        SearchContext context = idleSearchContexts.poll();
+        return context != null ? context : new SearchContext();
+    }
+
 
-        return nodeChosen;
+    /**
+     * Gives back the given search context to the pool, once the search is over
+     *
+     * @param context : the search context
+     */
+    private void releaseSearchContext(SearchContext context) {
+        idleSearchContexts.add(context);
+        availableSearchContexts.release();
     }
 
 
     /**
-     * Returns the list of edges which compose the path/itinerary.
+     * Returns the cost of going along the given edge from the given node
      *
-     * @param startNodeId : ID of the node at the start of the route
-     * @param endNodeId   : ID of the node at the end of the route
-     * @return a list
+     * @param nodeId : ID of the node the edge leaves from
+     * @param edgeId : ID of the edge
+     * @return the cost
      */
-    private List<Edge> reconstructRoute(int startNodeId, int endNodeId) {
-        LinkedList<Edge> edges = new LinkedList<>();
-        int start;
-        int end = endNodeId;
-        int edgeId;
+    private float edgeCost(int nodeId, int edgeId) {
+        return (float) (graph.edgeLength(edgeId) * costFunction.costFactor(nodeId, edgeId));
+    }
+
+
+    /**
+     * State of a search: open sets, distances, predecessors and current query.
+     * A context is used by a single thread at a time, and reused by the following searches
+     * to avoid allocating arrays as large as the graph for each of them.
+     * <p>
+     * The distances are not reset between searches: every search has a new generation number, and the
+     * distance of a node is only valid if the node has been stamped with the current generation,
+     * otherwise it is infinite. Starting a search is thus in O(1) instead of O(number of nodes).
+     */
+    private final class SearchContext {
+        private final ContractionHierarchy.Search hierarchySearch;
+        private final OpenSet nodesToExplore;
+        private final float[] nodesDistanceToOrigin;
+        private final int[] originGenerations;
+        private final int[] predecessors;
+        private final int[] predecessorEdges;
+        private final OpenSet backwardNodesToExplore;
+        private final float[] nodesDistanceToDestination;
+        private final int[] destinationGenerations;
+        private final int[] successors;
+        private final int[] successorEdges;
+        private int generation;
+        private int nodeChosenId;
+        private int startNodeId;
+        private int endNodeId;
+        private double startNodeE;
+        private double startNodeN;
+        private double endNodeE;
+        private double endNodeN;
+        private OneToManySearch oneToManySearch;
+
+
+        /**
+         * Constructor of the class which allocates the arrays needed by the searches of the RouteComputer
+         */
+        private SearchContext() {
+            int nodeCount = hierarchy == null ? graph.nodeCount() : 0;
+            hierarchySearch = hierarchy == null ? null : hierarchy.newSearch();
+            nodesDistanceToOrigin = new float[nodeCount];
+            originGenerations = new int[nodeCount];
+            predecessors = new int[nodeCount];
+            predecessorEdges = new int[nodeCount];
+            nodesToExplore = newOpenSet(queueType, nodeCount);
+
+            if (searchMode == SearchMode.BIDIRECTIONAL) {
+                nodesDistanceToDestination = new float[nodeCount];
+                destinationGenerations = new int[nodeCount];
+                successors = new int[nodeCount];
+                successorEdges = new int[nodeCount];
+                backwardNodesToExplore = newOpenSet(queueType, nodeCount);
+            } else {
+                nodesDistanceToDestination = null;
+                destinationGenerations = null;
+                successors = null;
+                successorEdges = null;
+                backwardNodesToExplore = null;
+            }
+        }
+
+
+        /**
+         * Returns the one-to-many search of this context, which is only created when it is needed
+         *
+         * @return the one-to-many search
+         */
+        private OneToManySearch oneToManySearch() {
+            if (oneToManySearch == null) oneToManySearch = new OneToManySearch(graph, costFunction);
+            return oneToManySearch;
+        }
+
+
+        /**
+         * Computes the shortest path between the given nodes, with the search of the RouteComputer
+         *
+         * @param startNodeId : ID of the initial node
+         * @param endNodeId   : ID of the final node
+         * @return a path, or null if there is none
+         */
+        private RoutePath bestPathBetween(int startNodeId, int endNodeId) {
+            if (hierarchySearch != null) return hierarchySearch.bestPathBetween(startNodeId, endNodeId);
+
+            this.startNodeId = startNodeId;
+            this.endNodeId = endNodeId;
+            startNodeE = graph.nodeE(startNodeId);
+            startNodeN = graph.nodeN(startNodeId);
+            endNodeE = graph.nodeE(endNodeId);
+            endNodeN = graph.nodeN(endNodeId);
+            nextGeneration();
+
+            return searchMode == SearchMode.BIDIRECTIONAL ?
+                    bidirectionalPathBetween(startNodeId, endNodeId) :
+                    unidirectionalPathBetween(startNodeId, endNodeId);
+        }
 
-        while ((end != startNodeId)) {
-            start = predecessors[end];
 
-            //iterate over edges going out of the node to find the corresponding edge
-            for (int l = 0; l < graph.nodeOutDegree(start); l++) {
-                edgeId = graph.nodeOutEdgeId(start, l);
-                if (graph.edgeTargetNodeId(edgeId) == end) {
-                    edges.addFirst(Edge.of(graph, edgeId, start, end));
-                    break;
+        /**
+         * Computes the cheapest path going from the node reached by one of the given parts of start edges
+         * to the node one of the given parts of end edges leaves from, including the costs of these parts,
+         * if it is cheaper than the given bound. Outside of a contraction hierarchy, it is computed with
+         * a single A* search starting from all the start nodes at once, directed to the given end point
+         * (landmarks are not used, since the end is not a node); with a hierarchy, every pair of start
+         * and end nodes is queried.
+         *
+         * @param starts    : parts of the edges the path may start with
+         * @param ends      : parts of the edges the path may end with
+         * @param endE      : east coordinate of the end point
+         * @param endN      : north coordinate of the end point
+         * @param boundCost : cost which the path must be cheaper than
+         * @return the path, or null if there is none cheaper than the bound
+         */
+        private EdgePath bestEdgePathBetween(List<PartialEdge> starts, List<PartialEdge> ends,
+                                             double endE, double endN, double boundCost) {
+            if (hierarchySearch != null) return hierarchyEdgePathBetween(starts, ends, boundCost);
+
+            endNodeId = -1;
+            endNodeE = endE;
+            endNodeN = endN;
+            nextGeneration();
+            for (PartialEdge start : starts) {
+                int nodeId = start.toNodeId();
+                if (start.cost() < distanceToOrigin(nodeId)) {
+                    setDistanceToOrigin(nodeId, (float) start.cost());
+                    predecessors[nodeId] = -1;
+                    nodesToExplore.add(nodeId, (float) start.cost() + distanceToEndNode(nodeId));
                 }
             }
 
-            end = start;
+            float bestCost = (float) boundCost;
+            int bestNodeId = -1;
+            int bestEndIndex = -1;
+            while (!nodesToExplore.isEmpty() && nodesToExplore.peekPriority() < bestCost) {
+                if ((nodeChosenId = chooseNode()) == -1) break;
+
+                for (int i = 0; i < ends.size(); i++) {
+                    float cost = distanceToOrigin(nodeChosenId) + (float) ends.get(i).cost();
+                    if (ends.get(i).fromNodeId() == nodeChosenId && cost < bestCost) {
+                        bestCost = cost;
+                        bestNodeId = nodeChosenId;
+                        bestEndIndex = i;
+                    }
+                }
+
+                addNodesToExplore();
+                setDistanceToOrigin(nodeChosenId, Float.NEGATIVE_INFINITY);
+            }
+            nodesToExplore.clear();
+
+            if (bestNodeId == -1) return null;
+            int originNodeId = bestNodeId;
+            while (predecessors[originNodeId] != -1) originNodeId = predecessors[originNodeId];
+            int bestStartIndex = -1;
+            for (int i = 0; i < starts.size(); i++) {
+                if (starts.get(i).toNodeId() == originNodeId
+                        && (bestStartIndex == -1 || starts.get(i).cost() < starts.get(bestStartIndex).cost())) {
+                    bestStartIndex = i;
+                }
+            }
+            return new EdgePath(bestStartIndex, bestEndIndex, pathEdgeIds(originNodeId, bestNodeId, 0), bestCost);
         }
 
-        return edges;
+        /**
+         * Computes the path of bestEdgePathBetween with the contraction hierarchy, querying it for every pair
+         * of start and end nodes
+         *
+         * @param starts    : parts of the edges the path may start with
+         * @param ends      : parts of the edges the path may end with
+         * @param boundCost : cost which the path must be cheaper than
+         * @return the path, or null if there is none cheaper than the bound
+         */
+        private EdgePath hierarchyEdgePathBetween(List<PartialEdge> starts, List<PartialEdge> ends,
+                                                  double boundCost) {
+            EdgePath bestPath = null;
+            double bestCost = boundCost;
+            for (int i = 0; i < starts.size(); i++) {
+                for (int j = 0; j < ends.size(); j++) {
+                    int fromNodeId = starts.get(i).toNodeId();
+                    int toNodeId = ends.get(j).fromNodeId();
+                    double edgesCost = starts.get(i).cost() + ends.get(j).cost();
+                    if (edgesCost >= bestCost) continue;
+
+                    if (fromNodeId == toNodeId) {
+                        bestPath = new EdgePath(i, j, new int[0], edgesCost);
+                        bestCost = edgesCost;
+                        continue;
+                    }
+                    RoutePath path = hierarchySearch.bestPathBetween(fromNodeId, toNodeId);
+                    if (path != null && edgesCost + path.cost() < bestCost) {
+                        int[] edgeIds = new int[path.edgeCount()];
+                        for (int k = 0; k < edgeIds.length; k++) edgeIds[k] = path.edgeId(k);
+                        bestCost = edgesCost + path.cost();
+                        bestPath = new EdgePath(i, j, edgeIds, bestCost);
+                    }
+                }
+            }
+            return bestPath;
+        }
+
+
+        /**
+         * Computes the shortest path between the given nodes with an A* search from the start node
+         *
+         * @param startNodeId : ID of the initial node
+         * @param endNodeId   : ID of the final node
+         * @return a path, or null if there is none
+         */
+        private RoutePath unidirectionalPathBetween(int startNodeId, int endNodeId) {
+            setDistanceToOrigin(startNodeId, 0);
+            nodesToExplore.add(startNodeId, distanceToEndNode(startNodeId));
+
+
+            while ((nodeChosenId = chooseNode()) != -1) {
+
+                if (nodeChosenId == endNodeId) {
+                    nodesToExplore.clear();
+                    return new RoutePath(graph, startNodeId, pathEdgeIds(startNodeId, endNodeId, 0),
+                            distanceToOrigin(endNodeId));
+                }
+
+                addNodesToExplore();
+                setDistanceToOrigin(nodeChosenId, Float.NEGATIVE_INFINITY);
+            }
+            return null;
+        }
+
+        /**
+         * Computes the shortest path between the given nodes with two A* searches, one going forward
+         * from the start node along out-edges and one going backward from the end node along in-edges.
+         * Both use the average of the forward and backward straight-line estimates as potential,
+         * which keeps it consistent for both directions, so that the search can stop as soon as
+         * the sum of the smallest priorities of both sides reaches the cost of the best route found.
+         * The outdated entries of the nodes, whose priority is larger than the current one, are skipped,
+         * so that both types of open sets explore the same nodes.
+         *
+         * @param startNodeId : ID of the initial node
+         * @param endNodeId   : ID of the final node
+         * @return a path, or null if there is none
+         */
+        private RoutePath bidirectionalPathBetween(int startNodeId, int endNodeId) {
+            setDistanceToOrigin(startNodeId, 0);
+            setDistanceToDestination(endNodeId, 0);
+            nodesToExplore.add(startNodeId, potential(startNodeId));
+            backwardNodesToExplore.add(endNodeId, -potential(endNodeId));
+
+            float bestRouteCost = Float.POSITIVE_INFINITY;
+            int meetingNodeId = -1;
+
+            while (!nodesToExplore.isEmpty() && !backwardNodesToExplore.isEmpty()) {
+                float forwardPriority = nodesToExplore.peekPriority();
+                float backwardPriority = backwardNodesToExplore.peekPriority();
+                if (forwardPriority + backwardPriority >= bestRouteCost) break;
+
+                if (forwardPriority <= backwardPriority) {
+                    int nodeId = nodesToExplore.remove();
+                    // an open set allowing duplicates may still contain entries of nodes reached again since
+                    if (forwardPriority > distanceToOrigin(nodeId) + potential(nodeId)) continue;
+                    for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                        int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                        int toNodeId = graph.edgeTargetNodeId(edgeId);
+                        float distance = distanceToOrigin(nodeId) + edgeCost(nodeId, edgeId);
+
+                        if (distance < distanceToOrigin(toNodeId)) {
+                            setDistanceToOrigin(toNodeId, distance);
+                            predecessors[toNodeId] = nodeId;
+                            predecessorEdges[toNodeId] = edgeId;
+                            nodesToExplore.add(toNodeId, distance + potential(toNodeId));
+
+                            if (distance + distanceToDestination(toNodeId) < bestRouteCost) {
+                                bestRouteCost = distance + distanceToDestination(toNodeId);
+                                meetingNodeId = toNodeId;
+                            }
+                        }
+                    }
+                } else {
+                    int nodeId = backwardNodesToExplore.remove();
+                    if (backwardPriority > distanceToDestination(nodeId) - potential(nodeId)) continue;
+                    for (int i = 0; i < graph.nodeInDegree(nodeId); i++) {
+                        int edgeId = graph.nodeInEdgeId(nodeId, i);
+                        int fromNodeId = graph.edgeSourceNodeId(edgeId);
+                        float distance = distanceToDestination(nodeId) + edgeCost(fromNodeId, edgeId);
+
+                        if (distance < distanceToDestination(fromNodeId)) {
+                            setDistanceToDestination(fromNodeId, distance);
+                            successors[fromNodeId] = nodeId;
+                            successorEdges[fromNodeId] = edgeId;
+                            backwardNodesToExplore.add(fromNodeId, distance - potential(fromNodeId));
+
+                            if (distance + distanceToOrigin(fromNodeId) < bestRouteCost) {
+                                bestRouteCost = distance + distanceToOrigin(fromNodeId);
+                                meetingNodeId = fromNodeId;
+                            }
+                        }
+                    }
+                }
+            }
+            nodesToExplore.clear();
+            backwardNodesToExplore.clear();
+
+            if (meetingNodeId == -1) return null;
+
+            int backwardEdgeCount = 0;
+            for (int nodeId = meetingNodeId; nodeId != endNodeId; nodeId = successors[nodeId]) {
+                backwardEdgeCount += 1;
+            }
+            int[] edgeIds = pathEdgeIds(startNodeId, meetingNodeId, backwardEdgeCount);
+            int index = edgeIds.length - backwardEdgeCount;
+            for (int nodeId = meetingNodeId; nodeId != endNodeId; nodeId = successors[nodeId]) {
+                edgeIds[index++] = successorEdges[nodeId];
+            }
+            return new RoutePath(graph, startNodeId, edgeIds, bestRouteCost);
+        }
+
+        /**
+         * Returns the potential of the given node used by the bidirectional search, which is the average of
+         * the estimated distance to the end node and the opposite of the one from the start node
+         *
+         * @param nodeId : ID of the node
+         * @return the potential
+         */
+        private float potential(int nodeId) {
+            return (distanceToEndNode(nodeId) - distanceFromStartNode(nodeId)) / 2;
+        }
+
+        /**
+         * Starts a new generation, which invalidates the distances computed by the previous searches,
+         * and empties the open sets, which a search interrupted by an exception may have left non-empty.
+         * When the generation number overflows, the stamps are cleared so that no old stamp can match it.
+         */
+        private void nextGeneration() {
+            nodesToExplore.clear();
+            if (backwardNodesToExplore != null) backwardNodesToExplore.clear();
+            generation += 1;
+            if (generation == 0) {
+                Arrays.fill(originGenerations, 0);
+                if (destinationGenerations != null) Arrays.fill(destinationGenerations, 0);
+                generation = 1;
+            }
+        }
+
+        /**
+         * Returns the distance of the best route found so far from the start node to the given node
+         * in the current search
+         *
+         * @param nodeId : ID of the node
+         * @return the distance, infinite if the node has not been reached yet
+         */
+        private float distanceToOrigin(int nodeId) {
+            return originGenerations[nodeId] == generation ?
+                    nodesDistanceToOrigin[nodeId] : Float.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Sets the distance from the start node to the given node in the current search
+         *
+         * @param nodeId   : ID of the node
+         * @param distance : the distance
+         */
+        private void setDistanceToOrigin(int nodeId, float distance) {
+            nodesDistanceToOrigin[nodeId] = distance;
+            originGenerations[nodeId] = generation;
+        }
+
+        /**
+         * Returns the distance of the best route found so far from the given node to the end node
+         * in the current (bidirectional) search
+         *
+         * @param nodeId : ID of the node
+         * @return the distance, infinite if the node has not been reached yet
+         */
+        private float distanceToDestination(int nodeId) {
+            return destinationGenerations[nodeId] == generation ?
+                    nodesDistanceToDestination[nodeId] : Float.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Sets the distance from the given node to the end node in the current (bidirectional) search
+         *
+         * @param nodeId   : ID of the node
+         * @param distance : the distance
+         */
+        private void setDistanceToDestination(int nodeId, float distance) {
+            nodesDistanceToDestination[nodeId] = distance;
+            destinationGenerations[nodeId] = generation;
+        }
+
+        /**
+         * Adds weighted nodes to the nodesToExplore list which are connected to the nodeChosen
+         * (if the distance computed is smaller than the one stored in the array).
+         */
+        private void addNodesToExplore() {
+            int currentEdgeId;
+            int edgeEndNodeId;
+            float nodeDistanceToOrigin;
+
+            for (int i = 0; i < graph.nodeOutDegree(nodeChosenId); i++) {
+
+                currentEdgeId = graph.nodeOutEdgeId(nodeChosenId, i);
+                edgeEndNodeId = graph.edgeTargetNodeId(currentEdgeId);
+
+                nodeDistanceToOrigin = distanceToOrigin(nodeChosenId) + edgeCost(nodeChosenId, currentEdgeId);
+
+
+                if (nodeDistanceToOrigin < distanceToOrigin(edgeEndNodeId)) {
+                    predecessors[edgeEndNodeId] = nodeChosenId;
+                    predecessorEdges[edgeEndNodeId] = currentEdgeId;
+                    setDistanceToOrigin(edgeEndNodeId, nodeDistanceToOrigin);
+
+                    nodesToExplore.add(edgeEndNodeId, nodeDistanceToOrigin + distanceToEndNode(edgeEndNodeId));
+                }
+            }
+        }
+
+        /**
+         * Returns the estimated distance (lower bound of the cost) from the given node to the end node of the route:
+         * the straight-line distance, computed from the raw coordinates (no point is created),
+         * or the ALT lower bound if it is larger
+         *
+         * @param nodeId : ID of the node
+         * @return the distance
+         */
+        private float distanceToEndNode(int nodeId) {
+            float distance = (float) Math2.norm(graph.nodeE(nodeId) - endNodeE, graph.nodeN(nodeId) - endNodeN);
+            return landmarks == null || endNodeId == -1 ? distance : Math.max(distance, landmarks.lowerBound(nodeId, endNodeId));
+        }
+
+        /**
+         * Returns the estimated distance (lower bound of the cost) from the start node of the route to the given node,
+         * computed like distanceToEndNode
+         *
+         * @param nodeId : ID of the node
+         * @return the distance
+         */
+        private float distanceFromStartNode(int nodeId) {
+            float distance = (float) Math2.norm(graph.nodeE(nodeId) - startNodeE, graph.nodeN(nodeId) - startNodeN);
+            return landmarks == null ? distance : Math.max(distance, landmarks.lowerBound(startNodeId, nodeId));
+        }
+
+        /**
+         * Returns the ID of the node which distance from the start node and end node is smallest
+         * (ignores nodes already explored), or -1 if there is no node left to explore
+         *
+         * @return the ID of the node
+         */
+        private int chooseNode() {
+            int nodeId;
+            do {
+                if (nodesToExplore.isEmpty()) return -1;
+                nodeId = nodesToExplore.remove();
+            } while (distanceToOrigin(nodeId) == Float.NEGATIVE_INFINITY);
+
+            return nodeId;
+        }
+
+        /**
+         * Returns the IDs of the edges which compose the path from the start node to the given node, found by
+         * following the predecessors, in an array having room for the given number of additional edges at its end
+         *
+         * @param startNodeId     : ID of the node at the start of the path
+         * @param endNodeId       : ID of the node at the end of the path
+         * @param extraEdgesCount : number of additional edges
+         * @return the array of edge IDs
+         */
+        private int[] pathEdgeIds(int startNodeId, int endNodeId, int extraEdgesCount) {
+            int edgesCount = 0;
+            for (int nodeId = endNodeId; nodeId != startNodeId; nodeId = predecessors[nodeId]) {
+                edgesCount += 1;
+            }
+
+            int[] edgeIds = new int[edgesCount + extraEdgesCount];
+            int index = edgesCount;
+            for (int nodeId = endNodeId; nodeId != startNodeId; nodeId = predecessors[nodeId]) {
+                edgeIds[--index] = predecessorEdges[nodeId];
+            }
+            return edgeIds;
+        }
     }
 
 
     /**
-     * Inner record to represent a node, implementing the comparable interface
-     * to let the PriorityQueue know which element is the smallest in the queue.
+     * Part of an edge at the start or the end of a route between positions on edges
+     *
+     * @param edgeId       : ID of the edge
+     * @param fromNodeId   : ID of the node the edge leaves from
+     * @param toNodeId     : ID of the node the edge arrives at
+     * @param fromPosition : position on the edge at which the part starts (meters)
+     * @param toPosition   : position on the edge at which the part ends (meters)
+     * @param cost         : cost of going along the part
      */
-    private record WeightedNode(int nodeId, float distance, float distanceStraightLine)
-            implements Comparable<WeightedNode> {
-        @Override
-        public int compareTo(WeightedNode that) {
-            return Float.compare(this.distance + this.distanceStraightLine,
-                    that.distance + that.distanceStraightLine);
-        }
+    private record PartialEdge(int edgeId, int fromNodeId, int toNodeId,
+                               double fromPosition, double toPosition, double cost) {
     }
-}
 
+    /**
+     * Path between parts of edges, computed by bestRouteBetween(EdgePosition, EdgePosition)
+     *
+     * @param startIndex : index of the part of the start edge the path starts with
+     * @param endIndex   : index of the part of the end edge the path ends with
+     * @param edgeIds    : IDs of the edges of the path between both parts, possibly none
+     * @param cost       : total cost, including both parts
+     */
+    private record EdgePath(int startIndex, int endIndex, int[] edgeIds, double cost) {
+    }
+
+    /**
+     * Type of the queue used to store the nodes to explore
+     */
+    public enum QueueType {
+        /**
+         * Indexed binary heap of primitive values, updated in place (default)
+         */
+        BINARY_HEAP,
+        /**
+         * java.util.PriorityQueue of weighted node records, with lazy deletion
+         */
+        PRIORITY_QUEUE
+    }
 
+    /**
+     * Direction(s) in which the graph is explored
+     */
+    public enum SearchMode {
+        /**
+         * A* search from the start node to the end node (default)
+         */
+        UNIDIRECTIONAL,
+        /**
+         * Simultaneous A* searches from the start node and, backward, from the end node
+         */
+        BIDIRECTIONAL
+    }
+}
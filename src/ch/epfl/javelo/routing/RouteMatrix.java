@@ -0,0 +1,115 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.util.Objects;
+
+
+/**
+ * RouteMatrix
+ * Costs and lengths of the best routes from every source node to every target node, computed by
+ * RouteComputer.routeMatrix. They are stored row by row (one row per source) in arrays of floats.
+ *
+ * @author David Farah (341017)
+ * @author Wesley Nana Davies(344592)
+ */
+public final class RouteMatrix {
+    private final int[] sourceNodeIds;
+    private final int[] targetNodeIds;
+    private final float[] costs;
+    private final float[] lengths;
+
+
+    /**
+     * Constructor of the class which creates a matrix from the given nodes, costs and lengths
+     *
+     * @param sourceNodeIds : IDs of the source nodes
+     * @param targetNodeIds : IDs of the target nodes
+     * @param costs         : costs of the routes, row by row
+     * @param lengths       : lengths of the routes, row by row
+     * @throws IllegalArgumentException if the sizes of the arrays do not match
+     */
+    RouteMatrix(int[] sourceNodeIds, int[] targetNodeIds, float[] costs, float[] lengths) {
+        Preconditions.checkArgument(costs.length == sourceNodeIds.length * targetNodeIds.length
+                && lengths.length == costs.length);
+        this.sourceNodeIds = sourceNodeIds.clone();
+        this.targetNodeIds = targetNodeIds.clone();
+        this.costs = costs;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Returns the number of source nodes (rows)
+     *
+     * @return the number of source nodes
+     */
+    public int sourceCount() {
+        return sourceNodeIds.length;
+    }
+
+    /**
+     * Returns the number of target nodes (columns)
+     *
+     * @return the number of target nodes
+     */
+    public int targetCount() {
+        return targetNodeIds.length;
+    }
+
+    /**
+     * Returns the ID of the given source node
+     *
+     * @param source : index of the source
+     * @return the ID of the node
+     */
+    public int sourceNodeId(int source) {
+        return sourceNodeIds[source];
+    }
+
+    /**
+     * Returns the ID of the given target node
+     *
+     * @param target : index of the target
+     * @return the ID of the node
+     */
+    public int targetNodeId(int target) {
+        return targetNodeIds[target];
+    }
+
+    /**
+     * Returns the cost of the best route from the given source to the given target
+     *
+     * @param source : index of the source
+     * @param target : index of the target
+     * @return the cost, infinite if there is no route
+     * @throws IndexOutOfBoundsException if one of the indices is invalid
+     */
+    public float cost(int source, int target) {
+        return costs[index(source, target)];
+    }
+
+    /**
+     * Returns the length (in meters) of the best route from the given source to the given target
+     *
+     * @param source : index of the source
+     * @param target : index of the target
+     * @return the length, infinite if there is no route
+     * @throws IndexOutOfBoundsException if one of the indices is invalid
+     */
+    public double length(int source, int target) {
+        return lengths[index(source, target)];
+    }
+
+    /**
+     * Returns the index of the value of the given source and target in the arrays
+     *
+     * @param source : index of the source
+     * @param target : index of the target
+     * @return the index
+     * @throws IndexOutOfBoundsException if one of the indices is invalid
+     */
+    private int index(int source, int target) {
+        return Objects.checkIndex(source, sourceNodeIds.length) * targetNodeIds.length
+                + Objects.checkIndex(target, targetNodeIds.length);
+    }
+}
@@ -0,0 +1,133 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * RoutePath
+ * Best path between two nodes, as computed by RouteComputer.bestPathBetween: the IDs of its edges,
+ * its cost, length and ascent. Unlike a Route, it does not decode the points and profiles of the edges,
+ * which is only done by toRoute, if needed.
+ *
+ * @author David Farah (341017)
+ * @author Wesley Nana Davies(344592)
+ */
+public final class RoutePath {
+    private final Graph graph;
+    private final int startNodeId;
+    private final int[] edgeIds;
+    private final double cost;
+    private final double length;
+    private final double ascent;
+
+
+    /**
+     * Constructor of the class which creates the path going through the given edges from the given node
+     *
+     * @param graph       : graph of the path
+     * @param startNodeId : ID of the node the path starts from
+     * @param edgeIds     : IDs of the edges of the path, in order (not copied)
+     * @param cost        : cost of the path
+     * @throws IllegalArgumentException if the path has no edge
+     */
+    RoutePath(Graph graph, int startNodeId, int[] edgeIds, double cost) {
+        Preconditions.checkArgument(edgeIds.length > 0);
+        this.graph = graph;
+        this.startNodeId = startNodeId;
+        this.edgeIds = edgeIds;
+        this.cost = cost;
+
+        double length = 0;
+        double ascent = 0;
+        for (int edgeId : edgeIds) {
+            length += graph.edgeLength(edgeId);
+            ascent += graph.edgeElevationGain(edgeId);
+        }
+        this.length = length;
+        this.ascent = ascent;
+    }
+
+    /**
+     * Returns the ID of the node the path starts from
+     *
+     * @return the ID of the node
+     */
+    public int startNodeId() {
+        return startNodeId;
+    }
+
+    /**
+     * Returns the ID of the node the path arrives at
+     *
+     * @return the ID of the node
+     */
+    public int endNodeId() {
+        return graph.edgeTargetNodeId(edgeIds[edgeIds.length - 1]);
+    }
+
+    /**
+     * Returns the number of edges of the path
+     *
+     * @return the number of edges
+     */
+    public int edgeCount() {
+        return edgeIds.length;
+    }
+
+    /**
+     * Returns the ID of the edge at the given index of the path
+     *
+     * @param index : index of the edge in the path
+     * @return the ID of the edge
+     */
+    public int edgeId(int index) {
+        return edgeIds[index];
+    }
+
+    /**
+     * Returns the cost of the path, for the cost function of the RouteComputer which computed it
+     *
+     * @return the cost
+     */
+    public double cost() {
+        return cost;
+    }
+
+    /**
+     * Returns the length of the path, in meters
+     *
+     * @return the length
+     */
+    public double length() {
+        return length;
+    }
+
+    /**
+     * Returns the total positive elevation gain of the path, in meters
+     *
+     * @return the ascent
+     */
+    public double ascent() {
+        return ascent;
+    }
+
+    /**
+     * Returns the route made of the edges of the path, whose points and profiles are decoded from the graph
+     *
+     * @return the route
+     */
+    public Route toRoute() {
+        List<Edge> edges = new ArrayList<>(edgeIds.length);
+        int fromNodeId = startNodeId;
+        for (int edgeId : edgeIds) {
+            int toNodeId = graph.edgeTargetNodeId(edgeId);
+            edges.add(Edge.of(graph, edgeId, fromNodeId, toNodeId));
+            fromNodeId = toNodeId;
+        }
+        return new SingleRoute(edges);
+    }
+}
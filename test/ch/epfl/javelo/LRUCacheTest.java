@@ -0,0 +1,59 @@
+package ch.epfl.javelo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LRUCacheTest {
+    @Test
+    void lruCacheRemovesLeastRecentlyUsedEntries() {
+        var cache = new LRUCache<Integer, String>(3, 0.75f);
+        for (int i = 0; i < 3; i += 1) cache.put(i, "v" + i);
+        cache.get(0);
+        cache.put(3, "v3");
+        assertEquals(3, cache.weight());
+        assertTrue(cache.containsKey(0));
+        assertFalse(cache.containsKey(1));
+        assertTrue(cache.containsKey(2));
+        assertTrue(cache.containsKey(3));
+    }
+
+    @Test
+    void lruCacheRemovesLeastRecentlyUsedEntriesUntilTheirWeightFits() {
+        var cache = new LRUCache<Integer, String>(10, 0.75f, String::length);
+        cache.put(0, "aaa");
+        cache.put(1, "bbb");
+        cache.put(2, "ccc");
+        cache.get(0);
+        cache.put(3, "dddddd");
+        assertEquals(9, cache.weight());
+        assertTrue(cache.containsKey(0));
+        assertFalse(cache.containsKey(1));
+        assertFalse(cache.containsKey(2));
+
+        // an entry heavier than the capacity is kept alone
+        cache.put(4, "eeeeeeeeeeee");
+        assertEquals(12, cache.weight());
+        assertFalse(cache.containsKey(0));
+        assertFalse(cache.containsKey(3));
+        assertEquals("eeeeeeeeeeee", cache.get(4));
+    }
+
+    @Test
+    void lruCacheKeepsTheWeightOfReplacedValues() {
+        var cache = new LRUCache<Integer, String>(10, 0.75f, String::length);
+        cache.put(0, "aaa");
+        cache.put(1, "bbb");
+        assertEquals("aaa", cache.put(0, "a"));
+        assertEquals(4, cache.weight());
+
+        // replacing a value by a heavier one removes the least recently used entries
+        cache.put(0, "aaaaaaaa");
+        assertEquals(8, cache.weight());
+        assertFalse(cache.containsKey(1));
+
+        cache.clear();
+        assertEquals(0, cache.weight());
+        assertFalse(cache.containsKey(0));
+    }
+}
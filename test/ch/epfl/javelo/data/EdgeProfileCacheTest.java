@@ -0,0 +1,50 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Functions;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.DoubleUnaryOperator;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EdgeProfileCacheTest {
+
+    @Test
+    void edgeProfileCacheThrowsOnInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new EdgeProfileCache(0, Functions::constant));
+        assertThrows(IllegalArgumentException.class, () -> new EdgeProfileCache(1, Functions::constant));
+        assertThrows(IllegalArgumentException.class, () -> new EdgeProfileCache(100, Functions::constant));
+    }
+
+    @Test
+    void edgeProfileCacheCountsHitsAndMisses() {
+        var decodedCount = new int[1];
+        var cache = new EdgeProfileCache(16, edgeId -> {
+            decodedCount[0] += 1;
+            return Functions.constant(edgeId);
+        });
+
+        assertEquals(16, cache.capacity());
+        assertEquals(7, cache.profile(7).applyAsDouble(0));
+        assertEquals(7, cache.profile(7).applyAsDouble(0));
+        assertEquals(7, cache.profile(7).applyAsDouble(0));
+        assertEquals(1, decodedCount[0]);
+        assertEquals(1, cache.missCount());
+        assertEquals(2, cache.hitCount());
+    }
+
+    @Test
+    void edgeProfileCacheAlwaysReturnsProfileOfGivenEdge() {
+        var cache = new EdgeProfileCache(8, Functions::constant);
+        var rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; i += 1) {
+            var edgeId = rng.nextInt(100);
+            DoubleUnaryOperator profile = cache.profile(edgeId);
+            assertEquals(edgeId, profile.applyAsDouble(0));
+        }
+        assertEquals(RANDOM_ITERATIONS, cache.hitCount() + cache.missCount());
+        assertTrue(cache.missCount() >= 100 - 8);
+    }
+}
@@ -2,9 +2,12 @@ package ch.epfl.javelo.data;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 
@@ -277,6 +280,65 @@ class GraphEdgesTest {
         }
     }
 
+    @Test
+    void graphEdgesProfileSamplesWritesIntoGivenArray() {
+        var testCase = new TestCase(
+                new short[]{0x2a13, 0x1121, 0x1000},
+                new float[]{673.187500f, 673.250000f, 673.312500f, 673.437500f, 673.500000f, 673.562500f});
+        var sampleCount = testCase.uncompressed().length;
+        var edgesBuffer = ByteBuffer.allocate(10);
+        edgesBuffer.putShort(4, (short) ((2 * (sampleCount - 1)) << 4));
+        var profileIds = IntBuffer.wrap(new int[]{3 << 30});
+        var elevations = ShortBuffer.wrap(testCase.compressed());
+        var graphEdges = new GraphEdges(edgesBuffer, profileIds, elevations);
+        assertEquals(sampleCount, graphEdges.profileSampleCount(0));
+
+        for (boolean inverted : new boolean[]{false, true}) {
+            edgesBuffer.putInt(0, inverted ? ~0 : 0);
+            var expected = inverted ? testCase.uncompressedInverted() : testCase.uncompressed();
+            var samples = new float[sampleCount + 3];
+            assertEquals(sampleCount, graphEdges.profileSamples(0, samples, 2));
+            assertArrayEquals(expected, Arrays.copyOfRange(samples, 2, 2 + sampleCount));
+            assertEquals(0, samples[1]);
+            assertEquals(0, samples[2 + sampleCount]);
+        }
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                graphEdges.profileSamples(0, new float[sampleCount], 1));
+    }
+
+    @Test
+    void timeTakenToDecodeAllProfiles() throws IOException {
+        var basePath = Path.of("lausanne");
+        var graphEdges = new GraphEdges(
+                map(basePath.resolve("edges.bin")),
+                map(basePath.resolve("profile_ids.bin")).asIntBuffer(),
+                map(basePath.resolve("elevations.bin")).asShortBuffer());
+        var edgesCount = graphEdges.count();
+        var samples = new float[1 << 16];
+
+        for (int iteration = 0; iteration < 3; iteration += 1) {
+            long samplesCount = 0;
+            long t0 = System.nanoTime();
+            for (int edgeId = 0; edgeId < edgesCount; edgeId += 1) {
+                samplesCount += graphEdges.profileSamples(edgeId).length;
+            }
+            long t1 = System.nanoTime();
+            for (int edgeId = 0; edgeId < edgesCount; edgeId += 1) {
+                samplesCount -= graphEdges.profileSamples(edgeId, samples, 0);
+            }
+            long t2 = System.nanoTime();
+            assertEquals(0, samplesCount);
+            System.out.printf("Profils de %d arêtes décodés en %d ms (tableau alloué), %d ms (tableau réutilisé)\n",
+                    edgesCount, (t1 - t0) / 1_000_000, (t2 - t1) / 1_000_000);
+        }
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (var channel = FileChannel.open(file)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
     @Test
     void graphEdgesAttributesIndexWorksOnRandomValues() {
         var edgesCount = 10_000;
@@ -0,0 +1,90 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.javelo.projection.SwissBounds;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphRenumberingTest {
+
+    @Test
+    void graphRenumberingHilbertIndexGoesThroughNeighbouringCells() {
+        for (int order = 1; order <= 6; order += 1) {
+            int sideLength = 1 << order;
+            int[] cellsX = new int[sideLength * sideLength];
+            int[] cellsY = new int[sideLength * sideLength];
+            boolean[] visited = new boolean[sideLength * sideLength];
+            for (int x = 0; x < sideLength; x += 1) {
+                for (int y = 0; y < sideLength; y += 1) {
+                    int index = GraphRenumbering.hilbertIndex(order, x, y);
+                    assertFalse(visited[index]);
+                    visited[index] = true;
+                    cellsX[index] = x;
+                    cellsY[index] = y;
+                }
+            }
+            for (int index = 1; index < cellsX.length; index += 1) {
+                var distance = Math.abs(cellsX[index] - cellsX[index - 1]) + Math.abs(cellsY[index] - cellsY[index - 1]);
+                assertEquals(1, distance);
+            }
+        }
+    }
+
+    @Test
+    void graphRenumberingKeepsNodesAndEdges() throws IOException {
+        var targetPath = Files.createTempDirectory("javelo-hilbert");
+        try {
+            var newNodeIds = GraphRenumbering.renumber(Path.of("lausanne"), targetPath);
+            var graph = Graph.loadFrom(Path.of("lausanne"));
+            var renumbered = Graph.loadFrom(targetPath);
+
+            assertEquals(graph.nodeCount(), renumbered.nodeCount());
+            assertEquals(graph.edgeCount(), renumbered.edgeCount());
+            var rng = newRandom();
+            for (int i = 0; i < RANDOM_ITERATIONS; i += 1) {
+                var nodeId = rng.nextInt(graph.nodeCount());
+                var newNodeId = newNodeIds[nodeId];
+                assertEquals(graph.nodePoint(nodeId), renumbered.nodePoint(newNodeId));
+                assertEquals(graph.nodeOutDegree(nodeId), renumbered.nodeOutDegree(newNodeId));
+                for (int j = 0; j < graph.nodeOutDegree(nodeId); j += 1) {
+                    var edgeId = graph.nodeOutEdgeId(nodeId, j);
+                    var newEdgeId = renumbered.nodeOutEdgeId(newNodeId, j);
+                    assertEquals(newNodeIds[graph.edgeTargetNodeId(edgeId)], renumbered.edgeTargetNodeId(newEdgeId));
+                    assertEquals(graph.edgeLength(edgeId), renumbered.edgeLength(newEdgeId));
+                    assertEquals(graph.edgeAttributes(edgeId), renumbered.edgeAttributes(newEdgeId));
+                    assertEquals(graph.edgeProfile(edgeId).applyAsDouble(1),
+                            renumbered.edgeProfile(newEdgeId).applyAsDouble(1));
+                }
+            }
+
+            // the rewritten sectors give the same closest nodes
+            for (int i = 0; i < RANDOM_ITERATIONS; i += 1) {
+                var nodePoint = graph.nodePoint(rng.nextInt(graph.nodeCount()));
+                var point = new PointCh(
+                        Math2.clamp(SwissBounds.MIN_E, nodePoint.e() + rng.nextDouble(-500, 500), SwissBounds.MAX_E),
+                        Math2.clamp(SwissBounds.MIN_N, nodePoint.n() + rng.nextDouble(-500, 500), SwissBounds.MAX_N));
+                var closestNodeId = graph.nodeClosestTo(point, 300);
+                var newClosestNodeId = renumbered.nodeClosestTo(point, 300);
+                if (closestNodeId == -1) {
+                    assertEquals(-1, newClosestNodeId);
+                } else if (newNodeIds[closestNodeId] != newClosestNodeId) {
+                    // several nodes at the same point may be found in another order
+                    assertEquals(graph.nodePoint(closestNodeId), renumbered.nodePoint(newClosestNodeId));
+                }
+            }
+        } finally {
+            try (var files = Files.list(targetPath)) {
+                for (var file : files.toList()) Files.delete(file);
+            }
+            Files.delete(targetPath);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package ch.epfl.javelo.data;
 
+import ch.epfl.javelo.Math2;
 import ch.epfl.javelo.projection.PointCh;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -9,14 +10,20 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.IntPredicate;
 
 import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
 import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class GraphTest {
@@ -114,6 +121,32 @@ class GraphTest {
         }
     }
 
+    @Test
+    void graphNodeCoordinatesAreThoseOfNodePoint() {
+        var edgesCount = 10;
+        var edgesBuffer = ByteBuffer.allocate(10 * edgesCount);
+        var profileIds = IntBuffer.allocate(edgesCount);
+        var elevations = ShortBuffer.allocate(10);
+        var graphSectors = new GraphSectors(SECTORS_BUFFER);
+        var graphEdges = new GraphEdges(edgesBuffer, profileIds, elevations);
+        var attributeSets = List.<AttributeSet>of();
+
+        var nodesCount = 10_000;
+        var buffer = IntBuffer.allocate(3 * nodesCount);
+        var rng = newRandom();
+        for (int nodeId = 0; nodeId < nodesCount; nodeId += 1) {
+            buffer.put(3 * nodeId, (int) Math.scalb(2_600_000 + 50_000 * rng.nextDouble(), 4));
+            buffer.put(3 * nodeId + 1, (int) Math.scalb(1_200_000 + 50_000 * rng.nextDouble(), 4));
+        }
+        var graph = new Graph(new GraphNodes(buffer), graphSectors, graphEdges, attributeSets);
+        for (int i = 0; i < RANDOM_ITERATIONS; i += 1) {
+            var nodeId = rng.nextInt(nodesCount);
+            var point = graph.nodePoint(nodeId);
+            assertEquals(point.e(), graph.nodeE(nodeId));
+            assertEquals(point.n(), graph.nodeN(nodeId));
+        }
+    }
+
     @Test
     void graphNodeOutDegreeWorksOnRandomValues() {
         var edgesCount = 10;
@@ -162,6 +195,42 @@ class GraphTest {
         }
     }
 
+    @Test
+    void graphInEdgesAreTheReverseOfOutEdges() {
+        // 4 nodes, edges: 0->1, 0->2, 1->2, 2->0, 3->2
+        var targets = new int[]{1, 2, 2, 0, 2};
+        var edgesBuffer = ByteBuffer.allocate(10 * targets.length);
+        for (int edgeId = 0; edgeId < targets.length; edgeId += 1)
+            edgesBuffer.putInt(10 * edgeId, edgeId % 2 == 0 ? targets[edgeId] : ~targets[edgeId]);
+        var profileIds = IntBuffer.allocate(targets.length);
+        var elevations = ShortBuffer.allocate(10);
+        var nodesBuffer = IntBuffer.wrap(new int[]{
+                0, 0, (2 << 28),
+                0, 0, (1 << 28) | 2,
+                0, 0, (1 << 28) | 3,
+                0, 0, (1 << 28) | 4
+        });
+        var graph = new Graph(new GraphNodes(nodesBuffer), new GraphSectors(SECTORS_BUFFER),
+                new GraphEdges(edgesBuffer, profileIds, elevations), List.of());
+
+        assertEquals(5, graph.edgeCount());
+        assertEquals(1, graph.nodeInDegree(0));
+        assertEquals(1, graph.nodeInDegree(1));
+        assertEquals(3, graph.nodeInDegree(2));
+        assertEquals(0, graph.nodeInDegree(3));
+        assertEquals(3, graph.nodeInEdgeId(0, 0));
+        assertEquals(0, graph.nodeInEdgeId(1, 0));
+
+        var sourcesOfNode2 = new ArrayList<Integer>();
+        for (int i = 0; i < graph.nodeInDegree(2); i += 1) {
+            var edgeId = graph.nodeInEdgeId(2, i);
+            assertEquals(2, graph.edgeTargetNodeId(edgeId));
+            sourcesOfNode2.add(graph.edgeSourceNodeId(edgeId));
+        }
+        Collections.sort(sourcesOfNode2);
+        assertEquals(List.of(0, 1, 3), sourcesOfNode2);
+    }
+
     @Test
     void graphNodeClosestToWorksOnLausanneData() throws IOException {
         var graph = Graph.loadFrom(Path.of("lausanne"));
@@ -179,6 +248,107 @@ class GraphTest {
         assertEquals(expected3, actual3);
     }
 
+    @Test
+    void graphNodeClosestToFindsClosestNodeOnRandomPoints() throws IOException {
+        var graph = Graph.loadFrom(Path.of("lausanne"));
+        var rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS / 10; i += 1) {
+            var nearNodeId = rng.nextInt(graph.nodeCount());
+            var point = new PointCh(
+                    graph.nodeE(nearNodeId) + rng.nextDouble(-2000, 2000),
+                    graph.nodeN(nearNodeId) + rng.nextDouble(-2000, 2000));
+            var searchDistance = rng.nextDouble(0, 3000);
+
+            var expected = -1;
+            var expectedSquaredDistance = searchDistance * searchDistance;
+            for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId += 1) {
+                var squaredDistance = point.squaredDistanceTo(graph.nodePoint(nodeId));
+                if (squaredDistance < expectedSquaredDistance || (expected == -1 && squaredDistance == expectedSquaredDistance)) {
+                    expectedSquaredDistance = squaredDistance;
+                    expected = nodeId;
+                }
+            }
+            assertEquals(expected, graph.nodeClosestTo(point, searchDistance));
+        }
+    }
+
+    @Test
+    void graphNodesClosestToAndNodesWithinFindClosestNodesOnRandomPoints() throws IOException {
+        var graph = Graph.loadFrom(Path.of("lausanne"));
+        IntPredicate hasOutEdges = nodeId -> graph.nodeOutDegree(nodeId) > 0;
+        var rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS / 50; i += 1) {
+            var nearNodeId = rng.nextInt(graph.nodeCount());
+            var point = new PointCh(
+                    graph.nodeE(nearNodeId) + rng.nextDouble(-500, 500),
+                    graph.nodeN(nearNodeId) + rng.nextDouble(-500, 500));
+            var radius = rng.nextDouble(0, 1000);
+            var count = rng.nextInt(1, 20);
+
+            var expected = new ArrayList<Integer>();
+            for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId += 1) {
+                if (point.squaredDistanceTo(graph.nodePoint(nodeId)) <= radius * radius && hasOutEdges.test(nodeId))
+                    expected.add(nodeId);
+            }
+            expected.sort(Comparator.<Integer>comparingDouble(nodeId -> point.squaredDistanceTo(graph.nodePoint(nodeId)))
+                    .thenComparing(nodeId -> nodeId));
+            var expectedWithin = expected.stream().mapToInt(nodeId -> nodeId).toArray();
+            var expectedClosest = Arrays.copyOf(expectedWithin, Math.min(count, expectedWithin.length));
+
+            assertArrayEquals(expectedWithin, graph.nodesWithin(point, radius, hasOutEdges));
+            assertArrayEquals(expectedClosest, graph.nodesClosestTo(point, count, radius, hasOutEdges));
+        }
+        var point = new PointCh(2_532_734.8, 1_152_348.0);
+        assertEquals(3, graph.nodesClosestTo(point, 3, Double.POSITIVE_INFINITY, nodeId -> true).length);
+        assertEquals(0, graph.nodesClosestTo(point, 0, 100, nodeId -> true).length);
+    }
+
+    @Test
+    void graphEdgeClosestToFindsClosestEdgeOnRandomPoints() throws IOException {
+        var graph = Graph.loadFrom(Path.of("lausanne"));
+        var rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS / 200; i += 1) {
+            var nearNodeId = rng.nextInt(graph.nodeCount());
+            var point = new PointCh(
+                    graph.nodeE(nearNodeId) + rng.nextDouble(-500, 500),
+                    graph.nodeN(nearNodeId) + rng.nextDouble(-500, 500));
+            var searchDistance = rng.nextDouble(0, 1000);
+
+            var expectedDistance = Double.POSITIVE_INFINITY;
+            for (int edgeId = 0; edgeId < graph.edgeCount(); edgeId += 1) {
+                var distance = point.distanceTo(edgePoint(graph, edgeId, point));
+                if (distance <= searchDistance) expectedDistance = Math.min(expectedDistance, distance);
+            }
+
+            var edgePosition = graph.edgeClosestTo(point, searchDistance);
+            if (expectedDistance == Double.POSITIVE_INFINITY) {
+                assertNull(edgePosition);
+            } else {
+                var edgeId = edgePosition.edgeId();
+                var fromPoint = graph.nodePoint(graph.edgeSourceNodeId(edgeId));
+                var toPoint = graph.nodePoint(graph.edgeTargetNodeId(edgeId));
+                var proportion = graph.edgeLength(edgeId) == 0 ? 0 : edgePosition.position() / graph.edgeLength(edgeId);
+                var snappedPoint = new PointCh(
+                        Math2.interpolate(fromPoint.e(), toPoint.e(), proportion),
+                        Math2.interpolate(fromPoint.n(), toPoint.n(), proportion));
+                assertEquals(expectedDistance, point.distanceTo(snappedPoint), 1e-6);
+                assertTrue(edgePosition.position() <= graph.edgeLength(edgeId));
+            }
+        }
+        assertNull(graph.edgeClosestTo(null, 1000));
+    }
+
+    private static PointCh edgePoint(Graph graph, int edgeId, PointCh point) {
+        var fromPoint = graph.nodePoint(graph.edgeSourceNodeId(edgeId));
+        var toPoint = graph.nodePoint(graph.edgeTargetNodeId(edgeId));
+        var length = fromPoint.distanceTo(toPoint);
+        var proportion = length == 0 ? 0 : Math2.clamp(0, Math2.projectionLength(
+                fromPoint.e(), fromPoint.n(), toPoint.e(), toPoint.n(), point.e(), point.n()) / length, 1);
+        return new PointCh(
+                Math2.interpolate(fromPoint.e(), toPoint.e(), proportion),
+                Math2.interpolate(fromPoint.n(), toPoint.n(), proportion));
+    }
+
     @Test
     void graphEdgeTargetNodeIdWorksOnRandomValues() {
         var nodesCount = 10;
@@ -254,6 +424,9 @@ class GraphTest {
             assertEquals(
                     unmodifiableAttributeSets.get(attributeSetIndex),
                     graph.edgeAttributes(edgeId));
+            assertEquals(
+                    unmodifiableAttributeSets.get(attributeSetIndex).bits(),
+                    graph.edgeAttributeBits(edgeId));
         }
     }
 
@@ -394,4 +567,77 @@ class GraphTest {
             }
         }
     }
+
+    @Test
+    void graphEdgeProfileIsDecodedLazilyAndCached() {
+        var graphNodes = new GraphNodes(IntBuffer.allocate(3 * 10));
+        var graphSectors = new GraphSectors(SECTORS_BUFFER);
+        var edgesBuffer = ByteBuffer.allocate(10);
+        edgesBuffer.putShort(4, (short) (4 << 4));
+        var profileIds = IntBuffer.wrap(new int[]{1 << 30});
+        var elevations = ShortBuffer.wrap(new short[]{(short) (100 << 4), (short) (102 << 4), (short) (104 << 4)});
+        var graph = new Graph(graphNodes, graphSectors, new GraphEdges(edgesBuffer, profileIds, elevations), List.of());
+        var cache = graph.edgeProfileCache();
+
+        var profile1 = graph.edgeProfile(0);
+        var profile2 = graph.edgeProfile(0);
+        assertEquals(0, cache.hitCount() + cache.missCount());
+
+        assertEquals(101, profile1.applyAsDouble(1));
+        assertEquals(104, profile1.applyAsDouble(4));
+        assertEquals(1, cache.missCount());
+        assertEquals(0, cache.hitCount());
+
+        assertEquals(103, profile2.applyAsDouble(3));
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.hitCount());
+    }
+
+    @Test
+    void graphLoadFromGivesSameGraphInEveryLoadMode() throws IOException {
+        var expected = Graph.loadFrom(Path.of("lausanne"));
+        for (var loadMode : Graph.LoadMode.values()) {
+            var graph = Graph.loadFrom(Path.of("lausanne"), loadMode);
+            assertEquals(expected.nodeCount(), graph.nodeCount());
+            assertEquals(expected.edgeCount(), graph.edgeCount());
+            var rng = newRandom();
+            for (int i = 0; i < RANDOM_ITERATIONS; i += 1) {
+                var nodeId = rng.nextInt(graph.nodeCount());
+                var edgeId = rng.nextInt(graph.edgeCount());
+                assertEquals(expected.nodePoint(nodeId), graph.nodePoint(nodeId));
+                assertEquals(expected.edgeTargetNodeId(edgeId), graph.edgeTargetNodeId(edgeId));
+                assertEquals(expected.edgeAttributes(edgeId), graph.edgeAttributes(edgeId));
+                assertEquals(expected.edgeProfile(edgeId).applyAsDouble(1), graph.edgeProfile(edgeId).applyAsDouble(1));
+            }
+
+            var metrics = graph.loadMetrics().join();
+            assertEquals(6, metrics.size());
+            for (var fileMetrics : metrics) {
+                assertEquals(Files.size(Path.of("lausanne").resolve(fileMetrics.fileName())), fileMetrics.size());
+                assertTrue(fileMetrics.loadNanos() > 0);
+            }
+        }
+    }
+
+    @Test
+    void graphLoadFromGivesSameGraphInBothLayouts() throws IOException {
+        var expected = Graph.loadFrom(Path.of("lausanne"));
+        var graph = Graph.loadFrom(Path.of("lausanne"), Graph.LoadMode.LAZY, Graph.Layout.ARRAYS);
+        assertEquals(expected.nodeCount(), graph.nodeCount());
+        assertEquals(expected.edgeCount(), graph.edgeCount());
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId += 1) {
+            assertEquals(expected.nodePoint(nodeId), graph.nodePoint(nodeId));
+            assertEquals(expected.nodeOutDegree(nodeId), graph.nodeOutDegree(nodeId));
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i += 1)
+                assertEquals(expected.nodeOutEdgeId(nodeId, i), graph.nodeOutEdgeId(nodeId, i));
+        }
+        for (int edgeId = 0; edgeId < graph.edgeCount(); edgeId += 1) {
+            assertEquals(expected.edgeTargetNodeId(edgeId), graph.edgeTargetNodeId(edgeId));
+            assertEquals(expected.edgeIsInverted(edgeId), graph.edgeIsInverted(edgeId));
+            assertEquals(expected.edgeLength(edgeId), graph.edgeLength(edgeId));
+            assertEquals(expected.edgeElevationGain(edgeId), graph.edgeElevationGain(edgeId));
+            assertEquals(expected.edgeAttributeBits(edgeId), graph.edgeAttributeBits(edgeId));
+        }
+        assertEquals(expected.nodeInDegree(0), graph.nodeInDegree(0));
+    }
 }
@@ -40,7 +40,7 @@ public class Step8 extends Application{
 
         CostFunction cf = new CityBikeCF(graph);
         RouteComputer rc = new RouteComputer(graph, cf);
-        RouteBean rb = new RouteBean(rc);
+        RouteBean rb = new RouteBean(rc, errorConsumer);
         rb.setHighlightedPositionProperty(1000);
         RouteManager rm = new RouteManager(rb,mapViewParametersP);
 
@@ -0,0 +1,84 @@
+package ch.epfl.javelo.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryHeapOpenSetTest {
+
+    @Test
+    void binaryHeapOpenSetIsInitiallyEmpty() {
+        var openSet = new BinaryHeapOpenSet(10);
+        assertTrue(openSet.isEmpty());
+    }
+
+    @Test
+    void binaryHeapOpenSetRemovesNodesByIncreasingPriority() {
+        var rng = newRandom();
+        var nodeCount = 1_000;
+        var openSet = new BinaryHeapOpenSet(nodeCount);
+        var priorities = new float[nodeCount];
+        for (int nodeId = 0; nodeId < nodeCount; nodeId += 1) {
+            priorities[nodeId] = rng.nextFloat(0, 10_000);
+            openSet.add(nodeId, priorities[nodeId]);
+        }
+
+        var sortedPriorities = priorities.clone();
+        Arrays.sort(sortedPriorities);
+        for (float expected : sortedPriorities) {
+            assertFalse(openSet.isEmpty());
+            assertEquals(expected, priorities[openSet.remove()]);
+        }
+        assertTrue(openSet.isEmpty());
+    }
+
+    @Test
+    void binaryHeapOpenSetDecreasesPriorityOfNodeAlreadyInSet() {
+        var openSet = new BinaryHeapOpenSet(3);
+        openSet.add(0, 10);
+        openSet.add(1, 20);
+        openSet.add(2, 30);
+        openSet.add(2, 5);
+        openSet.add(0, 50);
+
+        assertEquals(2, openSet.remove());
+        assertEquals(0, openSet.remove());
+        assertEquals(1, openSet.remove());
+        assertTrue(openSet.isEmpty());
+    }
+
+    @Test
+    void binaryHeapOpenSetNeverContainsDuplicates() {
+        var rng = newRandom();
+        var nodeCount = 50;
+        var openSet = new BinaryHeapOpenSet(nodeCount);
+        for (int i = 0; i < RANDOM_ITERATIONS; i += 1) {
+            openSet.add(rng.nextInt(nodeCount), rng.nextFloat(0, 100));
+        }
+
+        var removed = new boolean[nodeCount];
+        while (!openSet.isEmpty()) {
+            var nodeId = openSet.remove();
+            assertFalse(removed[nodeId]);
+            removed[nodeId] = true;
+        }
+    }
+
+    @Test
+    void binaryHeapOpenSetClearWorks() {
+        var openSet = new BinaryHeapOpenSet(5);
+        for (int nodeId = 0; nodeId < 5; nodeId += 1) {
+            openSet.add(nodeId, 5 - nodeId);
+        }
+        openSet.clear();
+        assertTrue(openSet.isEmpty());
+
+        openSet.add(3, 1);
+        assertEquals(3, openSet.remove());
+        assertTrue(openSet.isEmpty());
+    }
+}
@@ -0,0 +1,31 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedCostFunctionTest {
+
+    @Test
+    void cachedCostFunctionIsNotUsedForCostFunctionsDependingOnNodes() {
+        CostFunction costFunction = (nodeId, edgeId) -> nodeId;
+        assertSame(costFunction, CachedCostFunction.of(null, costFunction));
+    }
+
+    @Test
+    void cachedCostFunctionReturnsSameFactorsAsCityBikeCF() throws IOException {
+        var graph = Graph.loadFrom(Path.of("lausanne"));
+        var cityBikeCF = new CityBikeCF(graph);
+        var cached = CachedCostFunction.of(graph, cityBikeCF);
+
+        assertTrue(cached instanceof CachedCostFunction);
+        assertSame(cached, CachedCostFunction.of(graph, cached));
+        for (int edgeId = 0; edgeId < graph.edgeCount(); edgeId++) {
+            assertEquals((float) cityBikeCF.costFactor(0, edgeId), (float) cached.costFactor(0, edgeId));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContractionHierarchyTest {
+
+    @Test
+    void contractionHierarchyFindsRoutesOfSameLengthAsRouteComputer() throws IOException {
+        var graph = Graph.loadFrom(Path.of("lausanne"));
+        var cf = new CityBikeCF(graph);
+        var rc = new RouteComputer(graph, cf);
+        var hierarchy = ContractionHierarchyBuilder.build(graph, cf);
+
+        for (int[] nodes : new int[][]{{159049, 117669}, {210641, 43713}, {117669, 159049}}) {
+            var expected = rc.bestRouteBetween(nodes[0], nodes[1]);
+            var actual = hierarchy.bestRouteBetween(nodes[0], nodes[1]);
+            assertEquals(expected.length(), actual.length(), 1);
+            assertEquals(nodes[0], actual.edges().get(0).fromNodeId());
+            assertEquals(nodes[1], actual.edges().get(actual.edges().size() - 1).toNodeId());
+        }
+    }
+
+    @Test
+    void contractionHierarchyIsIdenticalOnceWrittenAndLoaded() throws IOException {
+        var graph = Graph.loadFrom(Path.of("lausanne"));
+        var cf = new CityBikeCF(graph);
+        var hierarchy = ContractionHierarchyBuilder.build(graph, cf);
+
+        var file = Files.createTempFile("javelo", ContractionHierarchy.FILE_NAME);
+        try {
+            hierarchy.writeTo(file);
+            var loaded = ContractionHierarchy.loadFrom(file, graph);
+            assertEquals(hierarchy.arcCount(), loaded.arcCount());
+
+            var rc = new RouteComputer(graph, cf, loaded);
+            var expected = hierarchy.bestRouteBetween(159049, 117669);
+            var actual = rc.bestRouteBetween(159049, 117669);
+            assertEquals(expected.length(), actual.length());
+            assertEquals(expected.edges().size(), actual.edges().size());
+            assertNull(rc.bestRouteBetween(149195, 153181));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void contractionHierarchyHasOneArcBetweenTwoNodes() throws IOException {
+        var graph = Graph.loadFrom(Path.of("lausanne"));
+        var hierarchy = ContractionHierarchyBuilder.build(graph, new CityBikeCF(graph));
+
+        // the arcs replaced by cheaper ones are neither kept nor written
+        var file = Files.createTempFile("javelo", ContractionHierarchy.FILE_NAME);
+        try {
+            hierarchy.writeTo(file);
+            try (var d = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                d.skipNBytes(3 * Integer.BYTES);
+                var arcCount = d.readInt();
+                assertEquals(hierarchy.arcCount(), arcCount);
+                d.skipNBytes((long) graph.nodeCount() * Integer.BYTES);
+
+                var linkedNodes = new HashSet<Long>();
+                for (int arc = 0; arc < arcCount; arc++) {
+                    var fromNodeId = d.readInt();
+                    var toNodeId = d.readInt();
+                    d.skipNBytes(Float.BYTES + 2 * Integer.BYTES);
+                    assertTrue(linkedNodes.add((long) fromNodeId * graph.nodeCount() + toNodeId));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -130,6 +130,40 @@ class ElevationProfileComputerTest {
         }
     }
 
+    @Test
+    void elevationProfileComputerWorksWithSamplesOfSegments() {
+        var rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS / 100; i += 1) {
+            var slope = rng.nextDouble(-0.1, 0.1);
+            var segmentsCount = rng.nextInt(1, 10);
+            var segments = new ArrayList<Route>();
+            var segmentLengths = new ArrayList<Double>();
+            var segmentSamples = new ArrayList<float[]>();
+            var start = 0d;
+            for (int j = 0; j < segmentsCount; j += 1) {
+                var segmentStart = start;
+                // the profile of the segment continues the one of the previous segment, except where it is unknown
+                // (the profile of a FakeRoute starts again on each of its edges, so that it has a single one)
+                var unknown = rng.nextInt(4) == 0;
+                var segment = new FakeRoute(1, x -> unknown ? Double.NaN : 500 + slope * (segmentStart + x));
+                segments.add(segment);
+                segmentLengths.add(segment.length());
+                segmentSamples.add(ElevationProfileComputer.elevationSamples(segment, 7));
+                start += segment.length();
+            }
+
+            var expected = elevationProfile(new MultiRoute(segments), 7);
+            var actual = elevationProfile(segmentLengths, segmentSamples, 7);
+            assertEquals(expected.length(), actual.length(), 1e-6);
+            for (double x = 0; x <= expected.length(); x += 3.5) {
+                assertEquals(expected.elevationAt(x), actual.elevationAt(x), 1e-2);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> {
+            elevationProfile(List.of(), List.of(), 5);
+        });
+    }
+
     private static final class FakeRoute implements Route {
         private static final double ORIGIN_E = 2_600_000;
         private static final double ORIGIN_N = 1_200_000;
@@ -0,0 +1,78 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LandmarkTableTest {
+
+    @Test
+    void landmarkTableGivesLowerBoundsOfRouteCosts() throws IOException {
+        var graph = Graph.loadFrom(Path.of("lausanne"));
+        var cf = new CityBikeCF(graph);
+        var table = LandmarkTableBuilder.build(graph, cf, 8);
+        var rc = new RouteComputer(graph, cf);
+
+        var rng = newRandom();
+        for (int i = 0; i < 20; i += 1) {
+            var startNodeId = rng.nextInt(graph.nodeCount());
+            var endNodeId = rng.nextInt(graph.nodeCount());
+            if (startNodeId == endNodeId) continue;
+            var route = rc.bestRouteBetween(startNodeId, endNodeId);
+            if (route == null) continue;
+
+            var cost = 0d;
+            for (var edge : route.edges()) {
+                for (int j = 0; j < graph.nodeOutDegree(edge.fromNodeId()); j += 1) {
+                    var edgeId = graph.nodeOutEdgeId(edge.fromNodeId(), j);
+                    if (graph.edgeTargetNodeId(edgeId) == edge.toNodeId()) {
+                        cost += graph.edgeLength(edgeId) * cf.costFactor(edge.fromNodeId(), edgeId);
+                        break;
+                    }
+                }
+            }
+            assertTrue(table.lowerBound(startNodeId, endNodeId) <= cost + 1e-2);
+        }
+    }
+
+    @Test
+    void routeComputerWithLandmarksFindsRoutesOfSameLength() throws IOException {
+        var graph = Graph.loadFrom(Path.of("lausanne"));
+        var cf = new CityBikeCF(graph);
+        var file = Files.createTempFile("javelo", LandmarkTable.FILE_NAME);
+        try {
+            LandmarkTableBuilder.build(graph, cf, LandmarkTableBuilder.DEFAULT_LANDMARK_COUNT).writeTo(file, graph);
+            var table = LandmarkTable.loadFrom(file, graph);
+            assertEquals(LandmarkTableBuilder.DEFAULT_LANDMARK_COUNT, table.landmarkCount());
+
+            var rc = new RouteComputer(graph, cf);
+            var altRc = new RouteComputer(graph, cf, table);
+            for (int[] nodes : new int[][]{{159049, 117669}, {210641, 43713}}) {
+                var expected = rc.bestRouteBetween(nodes[0], nodes[1]);
+                var actual = altRc.bestRouteBetween(nodes[0], nodes[1]);
+                assertEquals(expected.length(), actual.length(), 1);
+            }
+            assertNull(altRc.bestRouteBetween(149195, 153181));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void landmarkTableLowerBoundOfNodeToItselfIsZero() throws IOException {
+        var graph = Graph.loadFrom(Path.of("lausanne"));
+        var table = LandmarkTableBuilder.build(graph, new CityBikeCF(graph), 4);
+        for (int landmark = 0; landmark < table.landmarkCount(); landmark += 1) {
+            var nodeId = table.landmarkNodeId(landmark);
+            assertEquals(0f, table.costFromLandmark(landmark, nodeId));
+            assertEquals(0f, table.costToLandmark(landmark, nodeId));
+            assertEquals(0f, table.lowerBound(nodeId, nodeId));
+        }
+    }
+}
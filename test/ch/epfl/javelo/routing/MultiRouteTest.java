@@ -68,6 +68,36 @@ class MultiRouteTest {
         assertEquals(5, m.indexOfSegmentAt(10000));
     }
 
+    @Test
+    void multiRouteQueriesWorkWithManySegmentsAndEmptyOnes() {
+        var segments = new ArrayList<Route>();
+        for (int i = 0; i < 200; i += 1) {
+            var edge = horizontalEdge1K(i);
+            segments.add(switch (i % 3) {
+                case 0 -> new SingleRoute(List.of(edge));
+                // empty segment, at the start of the edge
+                case 1 -> new SingleRoute(List.of(new Edge(i, i, edge.fromPoint(), edge.fromPoint(), 0, x -> 500)));
+                default -> new MultiRoute(List.of(new SingleRoute(List.of(edge)),
+                        new SingleRoute(List.of(horizontalEdge1K(i + 1)))));
+            });
+        }
+        var m = new MultiRoute(segments);
+        var position = 0d;
+        var segmentIndex = 0;
+        for (Route segment : segments) {
+            if (segment.length() > 0) {
+                var middle = position + segment.length() / 4;
+                assertEquals(segmentIndex, m.indexOfSegmentAt(middle));
+                assertEquals(segment.pointAt(segment.length() / 4), m.pointAt(middle));
+                assertEquals(segment.nodeClosestTo(segment.length() / 4), m.nodeClosestTo(middle));
+            }
+            position += segment.length();
+            segmentIndex += segment.indexOfSegmentAt(segment.length()) + 1;
+        }
+        assertEquals(position, m.length());
+        assertEquals(segmentIndex - 1, m.indexOfSegmentAt(m.length()));
+    }
+
     @Test
     void multiRouteLengthReturnsTotalLength() {
         for (int i = 1; i < 10; i += 1) {
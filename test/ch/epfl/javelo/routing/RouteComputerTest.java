@@ -8,7 +8,12 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static ch.epfl.test.TestRandomizer.newRandom;
 import static org.junit.jupiter.api.Assertions.*;
 
 class RouteComputerTest {
@@ -45,6 +50,213 @@ class RouteComputerTest {
                 (System.nanoTime() - t0) / 1_000_000);
     }
 
+    @Test
+    void timeTakenForShortRoutes() throws IOException {
+        Graph g = Graph.loadFrom(Path.of("ch_west"));
+        CostFunction cf = new CityBikeCF(g);
+        RouteComputer rc = new RouteComputer(g, cf);
+
+        // routes between the two ends of a single edge, whose computation only explores a few nodes,
+        // so that their latency is dominated by the work done at the start of every search
+        var rng = newRandom();
+        int routesCount = 0;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            int nodeId = rng.nextInt(g.nodeCount());
+            if (g.nodeOutDegree(nodeId) == 0) continue;
+            int toNodeId = g.edgeTargetNodeId(g.nodeOutEdgeId(nodeId, 0));
+            if (toNodeId == nodeId) continue;
+            rc.bestRouteBetween(nodeId, toNodeId);
+            routesCount += 1;
+        }
+
+        System.out.printf("%d itinéraires courts calculés en %d µs en moyenne\n",
+                routesCount, (System.nanoTime() - t0) / 1_000 / Math.max(1, routesCount));
+    }
+
+    @Test
+    void timeTakenInBothGraphLayouts() throws IOException {
+        for (var layout : Graph.Layout.values()) {
+            Graph g = Graph.loadFrom(Path.of("ch_west"), Graph.LoadMode.HEAP, layout);
+            RouteComputer rc = new RouteComputer(g, CachedCostFunction.of(g, new CityBikeCF(g)));
+
+            // same random routes for both layouts, the first ones warming up the JIT compiler
+            var rng = newRandom();
+            int routesCount = 0;
+            long t0 = System.nanoTime();
+            for (int i = 0; i < 200; i++) {
+                int fromNodeId = rng.nextInt(g.nodeCount());
+                int toNodeId = rng.nextInt(g.nodeCount());
+                if (fromNodeId == toNodeId) continue;
+                rc.bestRouteBetween(fromNodeId, toNodeId);
+                routesCount += 1;
+            }
+
+            System.out.printf("Disposition %s : %d itinéraires calculés, %.1f itinéraires par seconde\n",
+                    layout, routesCount, routesCount * 1e9 / (System.nanoTime() - t0));
+        }
+    }
+
+    @Test
+    void routeComputerFindsSameRouteWithBothQueueTypes() {
+        var heapRc = newLausanneRouteComputer();
+        var queueRc = new RouteComputer(graph, new CityBikeCF(graph), RouteComputer.QueueType.PRIORITY_QUEUE);
+
+        var heapRoute = heapRc.bestRouteBetween(159049, 117669);
+        var queueRoute = queueRc.bestRouteBetween(159049, 117669);
+        assertEquals(queueRoute.length(), heapRoute.length(), 1);
+        assertEquals(queueRoute.edges().size(), heapRoute.edges().size());
+    }
+
+    @Test
+    void routeComputerFindsSameRouteInBothSearchModes() {
+        var unidirectionalRc = newLausanneRouteComputer();
+        var bidirectionalRc = new RouteComputer(graph, new CityBikeCF(graph),
+                RouteComputer.QueueType.BINARY_HEAP, RouteComputer.SearchMode.BIDIRECTIONAL);
+
+        for (int[] nodes : new int[][]{{159049, 117669}, {210641, 43713}}) {
+            var expected = unidirectionalRc.bestRouteBetween(nodes[0], nodes[1]);
+            var actual = bidirectionalRc.bestRouteBetween(nodes[0], nodes[1]);
+            assertEquals(expected.length(), actual.length(), 1);
+            assertEquals(nodes[0], actual.edges().get(0).fromNodeId());
+            assertEquals(nodes[1], actual.edges().get(actual.edges().size() - 1).toNodeId());
+        }
+        assertNull(bidirectionalRc.bestRouteBetween(149195, 153181));
+    }
+
+    @Test
+    void routeComputerFindsSamePathAsRoute() {
+        var rc = newLausanneRouteComputer();
+        var route = rc.bestRouteBetween(159049, 117669);
+        var path = rc.bestPathBetween(159049, 117669);
+
+        assertEquals(159049, path.startNodeId());
+        assertEquals(117669, path.endNodeId());
+        assertEquals(route.edges().size(), path.edgeCount());
+        assertEquals(route.length(), path.length(), 1e-6);
+        assertTrue(path.cost() >= path.length());
+        assertTrue(path.ascent() >= 0);
+
+        var pathRoute = path.toRoute();
+        assertEquals(route.length(), pathRoute.length(), 1e-6);
+        assertEquals(route.points(), pathRoute.points());
+        assertNull(rc.bestPathBetween(149195, 153181));
+    }
+
+    @Test
+    void routeComputerFindsSameRoutesWhenSharedByManyThreads() throws Exception {
+        var rc = newLausanneRouteComputer();
+        int[][] queries = {{159049, 117669}, {210641, 43713}, {149195, 153181}, {117669, 159049}};
+        var expectedLengths = new double[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            var route = rc.bestRouteBetween(queries[i][0], queries[i][1]);
+            expectedLengths[i] = route == null ? -1 : route.length();
+        }
+
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var futures = new ArrayList<Future<Double>>();
+            for (int i = 0; i < 8 * queries.length; i++) {
+                int[] query = queries[i % queries.length];
+                futures.add(executor.submit(() -> {
+                    var route = rc.bestRouteBetween(query[0], query[1]);
+                    return route == null ? -1 : route.length();
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                double actualLength = futures.get(i).get();
+                assertEquals(expectedLengths[i % queries.length], actualLength);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void routeComputerFindsSameRoutesAfterAFailedSearch() {
+        var expectedRc = newLausanneRouteComputer();
+        var cf = new CityBikeCF(graph);
+        var calls = new AtomicInteger();
+        var failingCall = new AtomicInteger();
+        CostFunction failingCf = (nodeId, edgeId) -> {
+            if (calls.incrementAndGet() == failingCall.get()) throw new IllegalStateException();
+            return cf.costFactor(nodeId, edgeId);
+        };
+
+        var rng = newRandom();
+        for (var searchMode : RouteComputer.SearchMode.values()) {
+            var rc = new RouteComputer(graph, failingCf, RouteComputer.QueueType.BINARY_HEAP, searchMode);
+            for (int i = 0; i < 50; i += 1) {
+                calls.set(0);
+                failingCall.set(200 + rng.nextInt(20_000));
+                try {
+                    rc.bestRouteBetween(rng.nextInt(graph.nodeCount()), rng.nextInt(graph.nodeCount()));
+                } catch (IllegalStateException | IllegalArgumentException e) {
+                    // the search failed (or its nodes were identical)
+                }
+                failingCall.set(-1);
+
+                // the search context of the failed search is reused by this one
+                int startNodeId = rng.nextInt(graph.nodeCount()), endNodeId = rng.nextInt(graph.nodeCount());
+                if (startNodeId == endNodeId) continue;
+                var expected = expectedRc.bestRouteBetween(startNodeId, endNodeId);
+                var actual = rc.bestRouteBetween(startNodeId, endNodeId);
+                assertEquals(expected == null, actual == null);
+                if (expected != null) assertEquals(expected.length(), actual.length(), 1);
+            }
+        }
+    }
+
+    @Test
+    void routeComputerFindsRoutesBetweenEdgePositions() {
+        var rc = newLausanneRouteComputer();
+        var nodeRoute = rc.bestRouteBetween(159049, 117669);
+
+        // positions at the nodes of edges give the route between these nodes
+        var inEdgeId = graph.nodeInEdgeId(159049, 0);
+        var start = new Graph.EdgePosition(inEdgeId, graph.edgeLength(inEdgeId));
+        var end = new Graph.EdgePosition(graph.nodeOutEdgeId(117669, 0), 0);
+        var edgeRoute = rc.bestRouteBetween(start, end);
+        assertEquals(nodeRoute.length(), edgeRoute.length(), 1);
+        assertEquals(graph.nodePoint(159049).distanceTo(edgeRoute.pointAt(0)), 0, 1e-3);
+        assertEquals(graph.nodePoint(117669).distanceTo(edgeRoute.pointAt(edgeRoute.length())), 0, 1e-3);
+
+        // positions in the middle of the first edge of the route give the part of the edge between them
+        var firstEdge = nodeRoute.edges().get(0);
+        var edgeId = -1;
+        for (int i = 0; i < graph.nodeOutDegree(159049); i++) {
+            var candidateEdgeId = graph.nodeOutEdgeId(159049, i);
+            if (graph.edgeTargetNodeId(candidateEdgeId) == firstEdge.toNodeId()
+                    && graph.edgeLength(candidateEdgeId) == firstEdge.length()) edgeId = candidateEdgeId;
+        }
+        var length = firstEdge.length();
+        var partRoute = rc.bestRouteBetween(
+                new Graph.EdgePosition(edgeId, length / 4), new Graph.EdgePosition(edgeId, 3 * length / 4));
+        assertEquals(length / 2, partRoute.length(), 1e-6);
+        assertEquals(firstEdge.pointAt(length / 4).distanceTo(partRoute.pointAt(0)), 0, 1e-6);
+        assertEquals(firstEdge.elevationAt(length / 2), partRoute.elevationAt(length / 4), 1e-6);
+
+        assertThrows(IllegalArgumentException.class, () -> rc.bestRouteBetween(start, start));
+    }
+
+    @Test
+    void routeComputerTreatsPositionsAtTheSharedNodeOfAdjacentEdgesAsTheSamePoint() {
+        var rc = newLausanneRouteComputer();
+        var inEdgeId = graph.nodeInEdgeId(159049, 0);
+        var outEdgeId = graph.nodeOutEdgeId(159049, 0);
+        var endOfInEdge = new Graph.EdgePosition(inEdgeId, graph.edgeLength(inEdgeId));
+        var startOfOutEdge = new Graph.EdgePosition(outEdgeId, 0);
+
+        assertTrue(rc.areAtSamePoint(endOfInEdge, startOfOutEdge));
+        assertTrue(rc.areAtSamePoint(startOfOutEdge, endOfInEdge));
+        assertThrows(IllegalArgumentException.class, () -> rc.bestRouteBetween(endOfInEdge, startOfOutEdge));
+
+        // a position inside the next edge is not at the node
+        var insideOutEdge = new Graph.EdgePosition(outEdgeId, graph.edgeLength(outEdgeId) / 2);
+        assertFalse(rc.areAtSamePoint(endOfInEdge, insideOutEdge));
+        assertNotNull(rc.bestRouteBetween(endOfInEdge, insideOutEdge));
+    }
+
     @Test
     void routeComputerThrowsOnIdenticalStartAndEndNodes() {
         assertThrows(IllegalArgumentException.class, () -> {
@@ -0,0 +1,62 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteMatrixTest {
+
+    @Test
+    void routeMatrixThrowsOnInvalidIndex() {
+        var matrix = new RouteMatrix(new int[]{1, 2}, new int[]{3, 4, 5}, new float[6], new float[6]);
+        assertThrows(IndexOutOfBoundsException.class, () -> matrix.cost(2, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> matrix.cost(0, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> matrix.length(-1, 0));
+    }
+
+    @Test
+    void routeMatrixThrowsOnArraysOfWrongSize() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new RouteMatrix(new int[]{1, 2}, new int[]{3, 4, 5}, new float[5], new float[6]));
+    }
+
+    @Test
+    void routeMatrixWorksOnKnownValues() {
+        var costs = new float[]{1, 2, 3, 4, 5, 6};
+        var lengths = new float[]{10, 20, 30, 40, 50, 60};
+        var matrix = new RouteMatrix(new int[]{1, 2}, new int[]{3, 4, 5}, costs, lengths);
+        assertEquals(2, matrix.sourceCount());
+        assertEquals(3, matrix.targetCount());
+        assertEquals(2, matrix.sourceNodeId(1));
+        assertEquals(5, matrix.targetNodeId(2));
+        assertEquals(6, matrix.cost(1, 2));
+        assertEquals(20, matrix.length(0, 1));
+    }
+
+    @Test
+    void routeMatrixContainsLengthsOfBestRoutes() throws IOException {
+        var graph = Graph.loadFrom(Path.of("lausanne"));
+        var rc = new RouteComputer(graph, new CityBikeCF(graph));
+        int[] sourceNodeIds = {159049, 210641, 117669};
+        int[] targetNodeIds = {117669, 43713, 159049, 153181};
+
+        var matrix = rc.routeMatrix(sourceNodeIds, targetNodeIds);
+        for (int i = 0; i < sourceNodeIds.length; i++) {
+            for (int j = 0; j < targetNodeIds.length; j++) {
+                if (sourceNodeIds[i] == targetNodeIds[j]) {
+                    assertEquals(0, matrix.cost(i, j));
+                    assertEquals(0, matrix.length(i, j));
+                    continue;
+                }
+                var route = rc.bestRouteBetween(sourceNodeIds[i], targetNodeIds[j]);
+                if (route == null) continue;
+                assertEquals(route.length(), matrix.length(i, j), 1);
+            }
+        }
+        assertEquals(9588.5625, matrix.length(0, 0), 1);
+    }
+}